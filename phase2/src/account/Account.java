@@ -1,5 +1,11 @@
 package account;
 
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.*;
@@ -10,12 +16,19 @@ import java.util.*;
  * @version 1.0.0
  */
 public abstract class Account implements Serializable {
-    protected Map<String, Timestamp[]> events;
+    protected Map<String, TimeInterval> events;
     private final String username; // No getters as the username are already stored in use case
     private String password;
     @SuppressWarnings("FieldMayBeFinal")
     private List<String> friends;
     private boolean messagable;
+    // the positions in the table of the ser file of the signed events and friends, with the times of the events, taken
+    // by addNamesTo so writeTo does not look every name up again, and kept until they change so an account which did
+    // not change since the last save is not looked up at all
+    private transient NameTable positionsTable;
+    private transient int[] eventPositions;
+    private transient TimeInterval[] eventTimes;
+    private transient int[] friendPositions;
 
     /** Creates an account with the specified username and password.
      * @param name The username of this account.
@@ -43,15 +56,16 @@ public abstract class Account implements Serializable {
         this.password = password;
     }
 
-    /** Checks if the account has time to attend the event or not.
+    /** Checks if the account has time to attend the event or not. An event which starts the moment another one of
+     * the account ends, or ends the moment it starts, does not clash with it.
      * @param startTime A Timestamp representing the time of an event.
      * @param endTime A Timestamp representing the time of an event.
      * @return true iff the account is available to join an event on the given time, false if this account cannot.
      */
     protected boolean available(Timestamp startTime, Timestamp endTime){
-        for (String event: events.keySet()){
-            Timestamp[] times = events.get(event);
-            if (!(times[0].after(endTime) || times[1].before(startTime))) {
+        TimeInterval time = TimeInterval.of(startTime, endTime);
+        for (TimeInterval times: events.values()){
+            if (times.overlaps(time)) {
                 return false;
             }
         }
@@ -64,8 +78,8 @@ public abstract class Account implements Serializable {
      * @param id A String representing the id of the new event.
      */
     protected void addEvent(Timestamp startTime, Timestamp endTime, String id){
-        Timestamp[] times = {startTime, endTime};
-        events.put(id, times);
+        events.put(id, TimeInterval.of(startTime, endTime));
+        positionsTable = null;
     }
 
     /** Checks if this account can cancel the event or not by given event time and ID.
@@ -75,6 +89,7 @@ public abstract class Account implements Serializable {
     protected boolean removeEvent(String id) {
         if (events.get(id) != null) {
             events.remove(id, events.get(id));
+            positionsTable = null;
             return true;
         }
         return false;
@@ -83,7 +98,7 @@ public abstract class Account implements Serializable {
     /** Gets all the signed events of this account.
      * @return A List of event id representing all the signed events along with their time in ascending order.
      */
-    protected Map<String, Timestamp[]> getEvents(){
+    protected Map<String, TimeInterval> getEvents(){
         return this.events;
     }
 
@@ -133,6 +148,79 @@ public abstract class Account implements Serializable {
                 events.size() + " events" + "\nYou have " + friends.size() + " user(s) in your favourite user list.";
     }
 
+    /** Adds the names this account writes through the table of the ser file to the table: the ids of its signed
+     * events and the usernames of its friends. Their positions are kept for writeTo until the events or friends change,
+     * so they are only looked up in the table again when they changed since the account was last written.
+     * @param names the table of names.
+     */
+    protected void addNamesTo(NameTable names) {
+        if (positionsTable == names) return;
+        eventPositions = new int[events.size()];
+        eventTimes = new TimeInterval[events.size()];
+        int i = 0;
+        for (Map.Entry<String, TimeInterval> event : events.entrySet()) {
+            eventPositions[i] = names.add(event.getKey());
+            eventTimes[i++] = event.getValue();
+        }
+        friendPositions = new int[friends.size()];
+        for (i = 0; i < friendPositions.length; i++) {
+            friendPositions[i] = names.add(friends.get(i));
+        }
+        positionsTable = names;
+    }
+
+    /** Forgets the positions taken by addNamesTo, called whenever the signed events or friends change.
+     */
+    protected void forgetPositions() {
+        positionsTable = null;
+    }
+
+    /** Writes the signed events, friends and messagable state of this account in the compact binary form of version
+     * 2, where the ids and friends are written through the table of the ser file, which must have been given to
+     * addNamesTo, and the time of an event is written out only once for all the accounts signed up for it.
+     * The type, username and password are written by AccountManager as they are needed to create the account.
+     * @param writer the writer of the ser file.
+     * @throws IOException if unable to write.
+     */
+    protected void writeTo(SnapshotWriter writer) throws IOException {
+        writer.writeCount(eventPositions.length);
+        for (int i = 0; i < eventPositions.length; i++) {
+            writer.writeRef(eventPositions[i]);
+            writer.writeSharedInterval(eventTimes[i]);
+        }
+        writer.writeRefs(friendPositions);
+        writer.writeBoolean(messagable);
+    }
+
+    /** Reads the signed events, friends and messagable state written by writeTo into this account.
+     * @param reader the reader of the ser file.
+     * @param version the version of the ser file, version 1 writes the names inline and every time in full.
+     * @throws IOException if unable to read.
+     */
+    protected void readFrom(SnapshotReader reader, int version) throws IOException {
+        readEvents(reader, version, events);
+        friends = version >= 2 ? reader.readRefs() : reader.readNames();
+        messagable = reader.readBoolean();
+    }
+
+    // helper to write a map of event ids to their times as by writeTo
+    static void writeEvents(SnapshotWriter writer, Map<String, TimeInterval> map) throws IOException {
+        writer.writeCount(map.size());
+        for (Map.Entry<String, TimeInterval> event : map.entrySet()) {
+            writer.writeRef(event.getKey());
+            writer.writeSharedInterval(event.getValue());
+        }
+    }
+
+    // helper to read a map of event ids to their times written by writeEvents, or by version 1
+    static void readEvents(SnapshotReader reader, int version, Map<String, TimeInterval> map) throws IOException {
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++) {
+            if (version >= 2) map.put(reader.readRef(), reader.readSharedInterval());
+            else map.put(reader.readName(), reader.readInterval());
+        }
+    }
+
     /** Checks if this account has a friend with username given
      * @param username A String representing the username of the friend account going to be checked.
      * @return true iff this account has a friend of the given username, false otherwise.
@@ -142,7 +230,10 @@ public abstract class Account implements Serializable {
     /** Adds this account has a friend with username given
      * @param username A String representing the username of the friend account going to be added.
      */
-    protected void addFriend(String username) { friends.add(username); }
+    protected void addFriend(String username) {
+        friends.add(username);
+        positionsTable = null;
+    }
 
 
     /** Removes the given friend from this account's friend list
@@ -150,6 +241,7 @@ public abstract class Account implements Serializable {
      */
     protected void removeFriend(String username) {
         friends.remove(username);
+        positionsTable = null;
     }
 
 }
@@ -1,20 +1,187 @@
 package account;
 
-import java.io.Serializable;
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.*;
 import java.sql.Timestamp;
 import java.util.*;
 
 /**
  * A use case class that can manager Account entity
  * It stores all accounts
+ * It is saved in a compact binary form, written and read by writeExternal and readExternal, where every username and
+ * event id is written once in a table and the time of an event once for all the accounts signed up for it.
+ * Signing up and dropping events of different accounts may run on many threads at once, as SignupService does, as
+ * long as the events of one account are only changed by one thread at a time. Every other change, such as adding an
+ * account, must not run at the same time as any other call.
  * @author Group0065
  * @version 1.0.0
  */
 
-public class AccountManager implements Serializable {
+public class AccountManager implements Externalizable {
+    private static final long serialVersionUID = -1056071429495938812L;
+    private static final int SNAPSHOT_VERSION = 2;
 
     // This maps the type of the account to another map which maps the username of a account to the account entity
     private Map<String, Map<String, Account>> allAccounts = new HashMap<>();
+    // Observers are told about every mutation, they are not saved with the accounts
+    private transient PropertyChangeSupport observers;
+    // number of changes made since the accounts were read, it is not saved
+    private transient long version;
+    // the table of names the accounts were last written with or read from, kept so an account which did not change is
+    // written without looking its names up again
+    private transient NameTable names;
+
+    /**
+     * Adds an observer which is notified after every change to the accounts. The name of the property is the name
+     * of the operation and the new value is the array of its arguments.
+     * @param observer the observer to add
+     */
+    public void addObserver(PropertyChangeListener observer) {
+        if (observers == null) observers = new PropertyChangeSupport(this);
+        observers.addPropertyChangeListener(observer);
+    }
+
+    /**
+     * Removes an observer added before, so it is no longer notified about changes to the accounts.
+     * @param observer the observer to remove
+     */
+    public void removeObserver(PropertyChangeListener observer) {
+        if (observers != null) observers.removePropertyChangeListener(observer);
+    }
+
+    /**
+     * Writes all accounts in the compact binary form, as one block after the version: the table of the usernames,
+     * account types and event ids, then for each type the username, password and information of every account of
+     * that type.
+     * @param out the output of the ser file
+     * @throws IOException if unable to write
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        new SnapshotWriter(out).writeCount(SNAPSHOT_VERSION);
+        if (names == null) names = new NameTable();
+        int expectedSize = 64;
+        for (Map<String, Account> users : allAccounts.values()) {
+            for (Map.Entry<String, Account> user : users.entrySet()) {
+                names.add(user.getKey());
+                Account account = user.getValue();
+                if (account != null) {
+                    names.add(account.getType());
+                    account.addNamesTo(names);
+                    expectedSize += 64 + 4 * account.getEvents().size();
+                }
+            }
+        }
+        SnapshotWriter writer = new SnapshotWriter(expectedSize);
+        writer.writeTable(names);
+        writer.writeCount(allAccounts.size());
+        for (Map.Entry<String, Map<String, Account>> type : allAccounts.entrySet()) {
+            writer.writeText(type.getKey());
+            writer.writeCount(type.getValue().size());
+            for (Map.Entry<String, Account> user : type.getValue().entrySet()) {
+                Account account = user.getValue();
+                writer.writeRef(user.getKey());
+                writer.writeRef(account == null ? null : account.getType());
+                if (account != null) {
+                    writer.writeText(account.getPassword());
+                    account.writeTo(writer);
+                }
+            }
+        }
+        writer.writeBlock(out);
+    }
+
+    /**
+     * Reads all accounts written by writeExternal, or by version 1, which wrote every name inline.
+     * @param in the input of the ser file
+     * @throws IOException if unable to read or the ser file is written by a newer version
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int version = new SnapshotReader(in).readCount();
+        if (version > SNAPSHOT_VERSION) throw new InvalidClassException("Unknown account data version " + version);
+        // version 1 is not written in a block, and writes names inline instead of in a table
+        SnapshotReader reader = version >= 2 ? SnapshotReader.readBlock(in) : new SnapshotReader(in);
+        if (version >= 2) names = reader.readTable();
+        AccountFactory af = new AccountFactory();
+        int types = reader.readCount();
+        for (int i = 0; i < types; i++) {
+            String type = version >= 2 ? reader.readText() : reader.readName();
+            int size = reader.readCount();
+            Map<String, Account> users = allAccounts.computeIfAbsent(type, k -> new HashMap<>(size * 4 / 3 + 1));
+            for (int j = 0; j < size; j++) {
+                String username = version >= 2 ? reader.readRef() : reader.readName();
+                String accountType = version >= 2 ? reader.readRef() : reader.readName();
+                Account account = null;
+                if (accountType != null) {
+                    account = af.getAccount(accountType, username, reader.readText());
+                    account.readFrom(reader, version);
+                }
+                users.put(username, account);
+            }
+        }
+    }
+
+    // helper to notify the observers about a change
+    private synchronized void notifyObservers(String operation, Object... args) {
+        version++;
+        if (observers != null) observers.firePropertyChange(operation, null, args);
+    }
+
+    /**
+     * Gets the modification version of the accounts, which goes up by one with every change, so the accounts only need to be
+     * saved when it is not the same as when they were last saved.
+     * @return the modification version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies a change recorded by an observer again, used to restore the accounts from a journal.
+     * @param operation the name of the operation
+     * @param args the arguments of the operation
+     */
+    @SuppressWarnings("unchecked")
+    public void applyRecord(String operation, Object[] args) {
+        switch (operation) {
+            case "addAccount":
+                addAccount((String) args[0], (String) args[1], (String) args[2]);
+                break;
+            case "addAccounts":
+                addAccounts((List<String>) args[0], (List<String>) args[1], (List<String>) args[2]);
+                break;
+            case "signUpEvent":
+                signUpEvent((Timestamp) args[0], (Timestamp) args[1], (String) args[2], (String) args[3]);
+                break;
+            case "dropEvent":
+                dropEvent((String) args[0], (String) args[1]);
+                break;
+            case "addFriend":
+                addFriend((String) args[0], (String) args[1]);
+                break;
+            case "removeFriend":
+                removeFriend((String) args[0], (String) args[1]);
+                break;
+            case "addToSpecialList":
+                addToSpecialList((Timestamp) args[0], (Timestamp) args[1], (String) args[2], (String) args[3]);
+                break;
+            case "removeFromSpecialList":
+                removeFromSpecialList((String) args[0], (String) args[1]);
+                break;
+            case "setPassword":
+                setPassword((String) args[0], (String) args[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown account operation: " + operation);
+        }
+    }
 
     /**
      * Gets the account with corresponding username.
@@ -83,6 +250,28 @@ public class AccountManager implements Serializable {
         AccountFactory af = new AccountFactory();
         allAccounts.computeIfAbsent(accountType.toLowerCase(), k -> new HashMap<>());
         allAccounts.get(accountType.toLowerCase()).put(username, af.getAccount(accountType, username, password));
+        notifyObservers("addAccount", accountType, username, password);
+    }
+
+    /**
+     * Adds a batch of new accounts at once, the i-th account has the i-th type, username and password. Observers are
+     * told about the whole batch once instead of about every account.
+     * Assumes that these accounts do not exist and all types are valid.
+     * @param accountTypes the types of the accounts
+     * @param usernames the usernames of the accounts
+     * @param passwords the passwords of the accounts
+     */
+    public void addAccounts(List<String> accountTypes, List<String> usernames, List<String> passwords) {
+        AccountFactory af = new AccountFactory();
+        for (int i = 0; i < usernames.size(); i++) {
+            String accountType = accountTypes.get(i);
+            allAccounts.computeIfAbsent(accountType.toLowerCase(), k -> new HashMap<>())
+                    .put(usernames.get(i), af.getAccount(accountType, usernames.get(i), passwords.get(i)));
+        }
+        if (!usernames.isEmpty()) {
+            notifyObservers("addAccounts", new ArrayList<>(accountTypes), new ArrayList<>(usernames),
+                    new ArrayList<>(passwords));
+        }
     }
 
     /**
@@ -111,6 +300,7 @@ public class AccountManager implements Serializable {
         Account curAccount = findAccountByUsername(username);
         if (curAccount != null && curAccount.available(startTime, endTime)){
             curAccount.addEvent(startTime, endTime, event);
+            notifyObservers("signUpEvent", startTime, endTime, event, username);
             return true;
         }
         return false;
@@ -125,7 +315,11 @@ public class AccountManager implements Serializable {
      */
     public boolean dropEvent(String event, String username){
         Account curAccount = findAccountByUsername(username);
-        return curAccount != null && curAccount.removeEvent(event);
+        if (curAccount != null && curAccount.removeEvent(event)) {
+            notifyObservers("dropEvent", event, username);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -133,7 +327,7 @@ public class AccountManager implements Serializable {
      * @param username A string represents the username of the account.
      * @return A SortedMap of user current signed up events if the target account is not null.
      */
-    public Map<String, Timestamp[]> viewSignedUpEvents(String username) {
+    public Map<String, TimeInterval> viewSignedUpEvents(String username) {
         Account curAccount = findAccountByUsername(username);
         if (curAccount == null) return null;
         return curAccount.getEvents();
@@ -152,6 +346,7 @@ public class AccountManager implements Serializable {
         if (curAccount == null || findAccountByUsername(friend) == null) return false;
         if (!curAccount.hasFriend(friend)) {
             curAccount.addFriend(friend);
+            notifyObservers("addFriend", username, friend);
             return true;
         }
         else return false;
@@ -170,6 +365,7 @@ public class AccountManager implements Serializable {
         if (curAccount == null || findAccountByUsername(friend) == null) return false;
         if (curAccount.hasFriend(friend)) {
             curAccount.removeFriend(friend);
+            notifyObservers("removeFriend", username, friend);
             return true;
         }
         else return false;
@@ -223,6 +419,7 @@ public class AccountManager implements Serializable {
             return;
         }
         curAccount.addToSpecialList(startTime, endTime, id);
+        notifyObservers("addToSpecialList", startTime, endTime, id, username);
     }
 
     /** Removes an event from the list of events that the organizer organized.
@@ -230,7 +427,9 @@ public class AccountManager implements Serializable {
      */
     public void removeFromSpecialList(String id, String username) {
         Account curAccount = findAccountByUsername(username);
-        if (curAccount != null) curAccount.removeFromSpecialList(id);
+        if (curAccount == null) return;
+        curAccount.removeFromSpecialList(id);
+        notifyObservers("removeFromSpecialList", id, username);
     }
 
     /**
@@ -253,6 +452,7 @@ public class AccountManager implements Serializable {
         Account curAccount = findAccountByUsername(username);
         if (curAccount == null) return;
         curAccount.setPassword(new_password);
+        notifyObservers("setPassword", new_password, username);
     }
 
     /**
@@ -271,13 +471,8 @@ public class AccountManager implements Serializable {
      * @param username Username of this user
      * @return List of available time
      */
-    public List<Timestamp[]> getUnAvailableTime(String username) {
-        List<Timestamp[]> unAvailableTime = new ArrayList<>();
-        Map<String, Timestamp[]> allEvents = findAccountByUsername(username).getEvents();
-        for (String event: allEvents.keySet()) {
-            unAvailableTime.add(allEvents.get(event));
-        }
-        return unAvailableTime;
+    public List<TimeInterval> getUnAvailableTime(String username) {
+        return new ArrayList<>(findAccountByUsername(username).getEvents().values());
     }
 }
 
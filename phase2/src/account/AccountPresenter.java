@@ -1,6 +1,7 @@
 package account;
 
 import conferencemain.MainPresenter;
+import data.TimeInterval;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -89,10 +90,10 @@ public class AccountPresenter extends MainPresenter {
      * If the list is empty, prints "you are not signed in any event."
      * @param events list of event info to print
      */
-    void getSignedEvents(Map<String, Timestamp[]> events) {
+    void getSignedEvents(Map<String, TimeInterval> events) {
         if (!events.isEmpty()) {
             for (String event : events.keySet()) {
-                System.out.println("Time: " + super.getTime(events.get(event)[0]) + ", Event Id: " + event);
+                System.out.println("Time: " + super.getTime(events.get(event).getStartTime()) + ", Event Id: " + event);
             }
         } else {
             super.printErrorMessage("you are not signed in any event.");
@@ -5,6 +5,7 @@ import authentication.ConferenceRegisterSystem;
 import authentication.SimpleValidationPassword;
 import Input.InputStrategy;
 import Input.UserInput;
+import data.TimeInterval;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -107,7 +108,7 @@ public class AccountSystem {
     }
 
     public List<String> getSignedEvents(String username) {
-        Map<String, Timestamp[]> allEvents = this.accounts.viewSignedUpEvents(username);
+        Map<String, TimeInterval> allEvents = this.accounts.viewSignedUpEvents(username);
         return new ArrayList<>(allEvents.keySet());
     }
 
@@ -375,7 +376,7 @@ public class AccountSystem {
      * @param username A string representing the username of user.
      * @return A list of timestamp list representing the unavailable time periods.
      */
-    public List<Timestamp[]> getUnAvailableTime(String username) {
+    public List<TimeInterval> getUnAvailableTime(String username) {
         return this.accounts.getUnAvailableTime(username);
         // if some are not available, presenter will tell user "xxx1 is not available" "xxx2 is not available" etc.
     }
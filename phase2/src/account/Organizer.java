@@ -1,5 +1,10 @@
 package account;
 
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
@@ -57,6 +62,39 @@ public class Organizer extends Account {
         organizedEvents.remove(id);
     }
 
+    /** Adds the names this organizer account writes through the table of the ser file, including the organized
+     * events.
+     * @param names the table of names.
+     */
+    @Override
+    protected void addNamesTo(NameTable names) {
+        super.addNamesTo(names);
+        for (String id : organizedEvents) {
+            names.add(id);
+        }
+    }
+
+    /** Writes the information of this organizer account in the compact binary form, including the organized events.
+     * @param writer the writer of the ser file.
+     * @throws IOException if unable to write.
+     */
+    @Override
+    protected void writeTo(SnapshotWriter writer) throws IOException {
+        super.writeTo(writer);
+        writer.writeRefs(organizedEvents);
+    }
+
+    /** Reads the information of this organizer account written by writeTo, including the organized events.
+     * @param reader the reader of the ser file.
+     * @param version the version of the ser file.
+     * @throws IOException if unable to read.
+     */
+    @Override
+    protected void readFrom(SnapshotReader reader, int version) throws IOException {
+        super.readFrom(reader, version);
+        organizedEvents = version >= 2 ? reader.readRefs() : reader.readNames();
+    }
+
     /** Displays a description for this organizer account about the number of events he/she is organizing.
      * @return A string representing the number of events organized by this organizer account in addition.
      */
@@ -1,5 +1,11 @@
 package account;
 
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.*;
 
@@ -11,7 +17,7 @@ import java.util.*;
  */
 
 public class Speaker extends Account {
-    private Map<String, Timestamp[]> hostingEvents;
+    private Map<String, TimeInterval> hostingEvents;
 
     /** Creates a speaker account with specific username and his/her account password.
      * @param name A string represents the username of this speaker account.
@@ -45,9 +51,10 @@ public class Speaker extends Account {
      */
     @Override
     protected void addToSpecialList(Timestamp startTime, Timestamp endTime, String id) {
-        Timestamp[] times = {startTime, endTime};
+        TimeInterval times = TimeInterval.of(startTime, endTime);
         hostingEvents.put(id, times);
         events.putIfAbsent(id, times);
+        forgetPositions();
     }
 
     /** Removes am event from the list of events that the speaker given.
@@ -58,9 +65,42 @@ public class Speaker extends Account {
         if (hostingEvents.get(id) != null) {
             hostingEvents.remove(id, hostingEvents.get(id));
             events.remove(id, events.get(id));
+            forgetPositions();
         }
     }
 
+    /** Adds the names this speaker account writes through the table of the ser file, including the hosting events.
+     * @param names the table of names.
+     */
+    @Override
+    protected void addNamesTo(NameTable names) {
+        super.addNamesTo(names);
+        for (String id : hostingEvents.keySet()) {
+            names.add(id);
+        }
+    }
+
+    /** Writes the information of this speaker account in the compact binary form, including the hosting events.
+     * @param writer the writer of the ser file.
+     * @throws IOException if unable to write.
+     */
+    @Override
+    protected void writeTo(SnapshotWriter writer) throws IOException {
+        super.writeTo(writer);
+        writeEvents(writer, hostingEvents);
+    }
+
+    /** Reads the information of this speaker account written by writeTo, including the hosting events.
+     * @param reader the reader of the ser file.
+     * @param version the version of the ser file.
+     * @throws IOException if unable to read.
+     */
+    @Override
+    protected void readFrom(SnapshotReader reader, int version) throws IOException {
+        super.readFrom(reader, version);
+        readEvents(reader, version, hostingEvents);
+    }
+
     /** Displays a description for this speaker account about the number of events he/she gives.
      * @return A string representing the number of events given by this speaker account.
      */
@@ -0,0 +1,151 @@
+package authentication;
+
+import account.AccountFactory;
+import account.AccountManager;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A controller class which creates many accounts at once from a registration file.
+ * The file is read as a stream, a chunk of rows at a time. The rows of a chunk are validated in parallel, then the
+ * usernames already seen are dropped with a hash set and the valid accounts are added to the account manager in one
+ * batch. Only one summary of the whole import is printed.
+ * Two formats are read: CSV files (ending with .csv), with one "type,username,password" row for each account and an
+ * optional header row, and txt files, with the type, username and password of each account on three lines followed
+ * by an empty line. Lines starting with # are ignored in both.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class BulkAccountImporter {
+
+    private static final int CHUNK_SIZE = 10000;
+
+    private final Validator usernameValidator = new SimpleValidationUsername();
+    private final Validator passwordValidator = new SimpleValidationPassword();
+    private final Set<String> accountTypes = new HashSet<>(new AccountFactory().getAllType());
+    private ConferencePresenter crp = new ConferencePresenter();
+
+    // what happened to one row of the file
+    private enum Result {
+        CREATED("Accounts created"),
+        MALFORMED("Malformed rows"),
+        INVALID_TYPE("Invalid account types"),
+        INVALID_USERNAME("Invalid usernames"),
+        INVALID_PASSWORD("Invalid passwords"),
+        DUPLICATE("Usernames repeated in the file"),
+        EXISTING("Accounts already exist");
+
+        private final String description;
+
+        Result(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * Creates the accounts in the file at the given path and prints a summary of the import.
+     * @param path the path of the CSV or txt file
+     * @param am the account manager the accounts are added to
+     * @return true if the file is read, false if it can not be read
+     */
+    public boolean importAccounts(String path, AccountManager am) {
+        Map<Result, Integer> summary = new EnumMap<>(Result.class);
+        Set<String> seen = new HashSet<>();
+        boolean csv = path.toLowerCase().endsWith(".csv");
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+            List<String[]> chunk = new ArrayList<>(CHUNK_SIZE);
+            String[] row = csv ? readCsvRow(br, true) : readTxtRow(br);
+            while (row != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, am, seen, summary);
+                    chunk.clear();
+                }
+                row = csv ? readCsvRow(br, false) : readTxtRow(br);
+            }
+            importChunk(chunk, am, seen, summary);
+        } catch (IOException e) {
+            crp.printErrorMessage("fail to read from " + path);
+            return false;
+        }
+        printSummary(path, summary);
+        return true;
+    }
+
+    // helper for importAccounts, validates the rows in parallel, then adds the valid and new ones in one batch
+    private void importChunk(List<String[]> chunk, AccountManager am, Set<String> seen, Map<Result, Integer> summary) {
+        List<Result> checked = chunk.parallelStream().map(this::validate).collect(Collectors.toList());
+        List<String> types = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Result result = checked.get(i);
+            String[] row = chunk.get(i);
+            if (result == Result.CREATED) {
+                if (!seen.add(row[1])) {
+                    result = Result.DUPLICATE;
+                } else if (am.findAccountByUsername(row[1]) != null) {
+                    result = Result.EXISTING;
+                } else {
+                    types.add(row[0]);
+                    usernames.add(row[1]);
+                    passwords.add(row[2]);
+                }
+            }
+            summary.merge(result, 1, Integer::sum);
+        }
+        am.addAccounts(types, usernames, passwords);
+    }
+
+    // helper for importChunk, checks a row without looking at the other rows or the existing accounts
+    private Result validate(String[] row) {
+        if (row.length != 3) return Result.MALFORMED;
+        if (!accountTypes.contains(row[0].toUpperCase())) return Result.INVALID_TYPE;
+        if (!usernameValidator.validate(row[1])) return Result.INVALID_USERNAME;
+        if (!passwordValidator.validate(row[2])) return Result.INVALID_PASSWORD;
+        return Result.CREATED;
+    }
+
+    // helper for importAccounts, reads the next three line account of a txt file, null at the end of the file
+    private String[] readTxtRow(BufferedReader br) throws IOException {
+        String line = br.readLine();
+        while (line != null && (line.startsWith("#") || line.trim().isEmpty())) {
+            line = br.readLine();
+        }
+        if (line == null) return null;
+        String username = br.readLine();
+        String password = br.readLine();
+        if (password == null) return new String[]{line};
+        return new String[]{line.trim(), username.trim(), password.trim()};
+    }
+
+    // helper for importAccounts, reads the next row of a CSV file, null at the end of the file
+    private String[] readCsvRow(BufferedReader br, boolean first) throws IOException {
+        String line = br.readLine();
+        while (line != null && (line.startsWith("#") || line.trim().isEmpty())) {
+            line = br.readLine();
+        }
+        if (line == null) return null;
+        String[] row = line.split(",", -1);
+        for (int i = 0; i < row.length; i++) {
+            row[i] = row[i].trim();
+        }
+        if (first && row.length == 3 && row[1].equalsIgnoreCase("username")) return readCsvRow(br, false);
+        return row;
+    }
+
+    // helper for importAccounts, prints how many rows had each result
+    private void printSummary(String path, Map<Result, Integer> summary) {
+        crp.printSeparateLine();
+        crp.printActionMessage("Imported accounts from " + path);
+        for (Result result : Result.values()) {
+            if (summary.containsKey(result)) {
+                crp.printActionMessage(result.description + ": " + summary.get(result));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package authentication;
+
+import account.AccountManager;
+
+import java.io.*;
+
+/**
+ * A benchmark of creating accounts from a registration file, by the bulk importer and by creating one account at a
+ * time with ConferenceRegisterSystem the way the file was read before.
+ * Run it with the number of rows, 200000 by default. The rows are written to a temporary CSV file and both ways are
+ * timed a few rounds, the first round includes warming up.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class BulkImportBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    /**
+     * Runs the benchmark and prints the time of each way and the number of accounts it created.
+     * @param args the number of rows, optional
+     * @throws IOException if the temporary file can not be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        File file = File.createTempFile("accounts", ".csv");
+        file.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            writer.println("type,username,password");
+            for (int i = 0; i < rows; i++) {
+                writer.println("Attendee,att" + i + ",_Pass" + i + "a");
+            }
+        }
+        System.out.println(rows + " rows, " + ROUNDS + " rounds");
+        for (int round = 0; round < ROUNDS; round++) {
+            AccountManager bulk = new AccountManager();
+            long start = System.nanoTime();
+            new BulkAccountImporter().importAccounts(file.getPath(), bulk);
+            report("bulk importer", start, bulk);
+            AccountManager single = new AccountManager();
+            start = System.nanoTime();
+            importOneAtATime(file, single);
+            report("one at a time", start, single);
+        }
+    }
+
+    // helper to create the accounts in the file one at a time, the lines printed for every account are dropped
+    private static void importOneAtATime(File file, AccountManager am) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            ConferenceRegisterSystem register = new ConferenceRegisterSystem();
+            reader.readLine();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] row = line.split(",");
+                register.createAccountWithData(row[0], row[1], row[2], am);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // helper to print the time since the start and the accounts created
+    private static void report(String way, long start, AccountManager am) {
+        System.out.printf("%s: %d ms, %d accounts%n", way, (System.nanoTime() - start) / 1000000,
+                am.getUsernameForType("attendee").size());
+    }
+}
@@ -1,11 +1,15 @@
 package authentication;
 
+import java.util.regex.Pattern;
+
 /**
  * A class can check if the password from user input is valid.
  * @author Group0065
  * @version 1.0.0
  */
 public class SimpleValidationPassword implements Validator {
+    private static final Pattern PASSWORD = Pattern.compile("^(?=.*[A-Z])(?=.*[a-z])(?=.*[0-9])\\w{6,15}$");
+
     /**
      * Checks if the given password contains only legal characters and password not null
      * @param password the String password given by user input
@@ -13,7 +17,7 @@ public class SimpleValidationPassword implements Validator {
      */
     @Override
     public boolean validate(String password) {
-        return password != null && password.matches("^(?=.*[A-Z])(?=.*[a-z])(?=.*[0-9])\\w{6,15}$");
+        return password != null && PASSWORD.matcher(password).matches();
     }
 
     /**
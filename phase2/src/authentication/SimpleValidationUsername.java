@@ -1,11 +1,14 @@
 package authentication;
 
+import java.util.regex.Pattern;
+
 /**
  * A class can check if the username from user input is valid.
  * @author Group0065
  * @version 1.0.0
  */
 class SimpleValidationUsername implements Validator {
+    private static final Pattern USERNAME = Pattern.compile("^[a-zA-Z0-9]{3,15}");
 
     /**
      * Checks if the given username contains only legal characters, and username not null.
@@ -14,7 +17,7 @@ class SimpleValidationUsername implements Validator {
      */
     @Override
     public boolean validate(String username) {
-        return username != null && username.matches("^[a-zA-Z0-9]{3,15}");
+        return username != null && USERNAME.matcher(username).matches();
     }
 
     /**
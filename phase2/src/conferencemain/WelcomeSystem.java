@@ -3,7 +3,8 @@ package conferencemain;
 import account.AccountManager;
 import account.AccountSystem;
 import conferencemain.WelcomePresenter;
-import data.DataReader;
+import data.Checkpointer;
+import data.ConferenceData;
 import event.Event;
 import room.RoomPresenter;
 import userinterface.UserSystem;
@@ -36,14 +37,10 @@ public class WelcomeSystem {
         wp = new WelcomePresenter();
     }
 
-    //helper for run. Used to test if class can be found
+    //helper for run. Reads all data once, also used to test if class can be found
     private boolean getData(){
         try {
-            DataReader dr = new DataReader();
-            dr.readAccount();
-            dr.readEvent();
-            dr.readMessage();
-            dr.readRoom();
+            ConferenceData.getInstance();
             return true;
         } catch (ClassNotFoundException cnfe){
             return false;
@@ -52,12 +49,14 @@ public class WelcomeSystem {
 
     /**
      * The start of this whole conference system.
+     * While the system runs, a checkpointer compacts the saved changes into the ser files in the background.
      */
     public void run(){
         if (this.getData()) {
+            Checkpointer checkpointer = new Checkpointer(60);
+            checkpointer.start();
             start();
-
-
+            checkpointer.stop();
         }
     }
     /**
@@ -127,10 +126,9 @@ public class WelcomeSystem {
 
     // helper for start()
     private boolean login(){
-        DataReader dr = new DataReader();
         ConferenceLoginSystem start = new ConferenceLoginSystem();
         try {
-            AccountManager accountManager = dr.readAccount();
+            AccountManager accountManager = ConferenceData.getInstance().getAccountManager();
             accountSystem = new AccountSystem(accountManager);
             String[] accInfo = start.logIn(accountManager);
             if (accInfo != null) {
@@ -147,11 +145,10 @@ public class WelcomeSystem {
 
     // helper for start()
     private boolean register(){
-        DataReader dr = new DataReader();
         ConferenceRegisterSystem register = new ConferenceRegisterSystem();
         String option = "Attendee";
         try {
-            AccountManager accountManager = dr.readAccount();
+            AccountManager accountManager = ConferenceData.getInstance().getAccountManager();
             accountSystem = new AccountSystem(accountManager);
             String username = register.createAccount(option, accountManager);
             if (username != null) {
@@ -0,0 +1,48 @@
+package data;
+
+import java.io.IOException;
+
+/**
+ * A file of records which only grows at its end, such as the bodies of messages. A record is appended once and then
+ * read back by its position and length. Files are kept by a storage next to its snapshots and logs.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public interface AppendFile {
+
+    /**
+     * Gets the position of the first record in the file.
+     * @return the position of the first record
+     */
+    long getStart();
+
+    /**
+     * Gets the position right after the last record appended.
+     * @return the end of the records
+     */
+    long getEnd();
+
+    /**
+     * Appends a record at the end of the file.
+     * @param record the bytes of the record
+     * @return the position of the record, used with its length to read it
+     * @throws IOException if unable to write
+     */
+    long append(byte[] record) throws IOException;
+
+    /**
+     * Reads the record at the given position.
+     * @param position the position of the record given by append
+     * @param length the length of the record
+     * @return the bytes of the record
+     * @throws IOException if unable to read
+     */
+    byte[] read(long position, int length) throws IOException;
+
+    /**
+     * Forces the records appended onto the disk (if there is one). Records should be forced before anything which
+     * refers to them is saved.
+     * @throws IOException if unable to write
+     */
+    void force() throws IOException;
+}
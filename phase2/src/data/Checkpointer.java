@@ -0,0 +1,122 @@
+package data;
+
+import account.AccountManager;
+import conferencemain.MainPresenter;
+import event.EventManager;
+import message.MessagingManager;
+import room.RoomManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A class which compacts the journals into new ser files on a background thread.
+ * A checkpoint builds its own copy of each manager from the last ser file and the committed part of the journal, so
+ * it never touches the managers used by the users and never holds up a save. The journal moves on to a new generation
+ * first, the new ser file then replaces the old one and the replayed generations are removed, which bounds how much
+ * journal is replayed when reading data.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class Checkpointer {
+
+    private final long period;
+    private final Storage storage;
+    private final ScheduledExecutorService executor;
+    private MainPresenter wp = new MainPresenter();
+
+    /**
+     * Creates a checkpointer of the files in the data folder, which runs a checkpoint every given number of seconds
+     * once started.
+     * @param period seconds between two checkpoints
+     */
+    public Checkpointer(long period) {
+        this(period, FileStorage.getDefault());
+    }
+
+    /**
+     * Creates a checkpointer of the given storage, which runs a checkpoint every given number of seconds once
+     * started.
+     * @param period seconds between two checkpoints
+     * @param storage the storage of the snapshots and the journals
+     */
+    public Checkpointer(long period, Storage storage) {
+        this.period = period;
+        this.storage = storage;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts running checkpoints in the background.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::checkpoint, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops running checkpoints, waits for the checkpoint which is running to finish.
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(period, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compacts the journal of every manager into its ser file. A manager whose journal is empty did not change, so
+     * its ser file is not written.
+     * @return the names of the snapshots written
+     */
+    public List<String> checkpoint() {
+        List<String> written = new ArrayList<>();
+        compact(written, "UserInfoDataBase.ser", "UserInfoJournal.log", AccountManager::new,
+                accountManager -> accountManager::applyRecord);
+        compact(written, "EventDataBase.ser", "EventJournal.log", EventManager::new,
+                eventManager -> eventManager::applyRecord);
+        compact(written, "RoomDataBase.ser", "RoomJournal.log", RoomManager::new,
+                roomManager -> roomManager::applyRecord);
+        compact(written, "MessageDataBase.ser", "MessageJournal.log", () -> new MessagingManager(storage),
+                messagingManager -> messagingManager::applyRecord);
+        return written;
+    }
+
+    // helper for checkpoint, compacts one journal into its snapshot
+    private <T> void compact(List<String> written, String serName, String journalName, Supplier<T> empty,
+                             Function<T, BiConsumer<String, Object[]>> applier) {
+        Journal journal = Journal.open(storage, journalName);
+        try {
+            Snapshot<T> snapshot;
+            long last;
+            synchronized (journal) {
+                snapshot = storage.exists(serName) ? Snapshot.of(storage.load(serName))
+                        : new Snapshot<>(0, empty.get());
+                // never build a snapshot from the journal alone when the old snapshot can not be read
+                if (snapshot == null) return;
+                last = journal.rotate();
+                if (last < snapshot.getGeneration()) return;
+                journal.replay(applier.apply(snapshot.getData()), snapshot.getGeneration(), last);
+            }
+            // the new snapshot starts after the closed generations, so they are never replayed on top of it even if
+            // removing them below does not happen
+            if (!storage.save(serName + ".tmp", new Snapshot<>(last + 1, snapshot.getData()))) return;
+            if (!storage.replace(serName + ".tmp", serName)) return;
+            journal.delete(last);
+            written.add(serName);
+        } catch (ClassNotFoundException ex) {
+            wp.printErrorMessage("fail to checkpoint " + serName);
+        }
+    }
+}
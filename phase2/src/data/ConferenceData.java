@@ -0,0 +1,178 @@
+package data;
+
+import account.AccountManager;
+import event.EventManager;
+import event.SignupService;
+import message.MessagingManager;
+import room.RoomManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A class which holds the managers of the whole conference system once they are read from file.
+ * The four ser files are read at the same time when the system starts, then every session is given the same managers,
+ * so logging in does not read any file.
+ * When saving, only the journals of the managers which changed since the last save are written.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class ConferenceData {
+
+    private static ConferenceData loaded;
+
+    private final Storage storage;
+    private final AccountManager accountManager;
+    private final EventManager eventManager;
+    private final RoomManager roomManager;
+    private final MessagingManager messagingManager;
+    private final SignupService signupService;
+    private final String[] journals = {"UserInfoJournal.log", "EventJournal.log", "RoomJournal.log",
+            "MessageJournal.log"};
+    // modification versions of the four managers when they were last saved, in the same order as journals
+    private final long[] savedVersions;
+
+    // reads the four managers from the storage in parallel
+    private ConferenceData(Storage storage) throws ClassNotFoundException {
+        this.storage = storage;
+        DataReader dr = new DataReader(storage);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<AccountManager> accounts = executor.submit(dr::readAccount);
+            Future<EventManager> events = executor.submit(dr::readEvent);
+            Future<RoomManager> rooms = executor.submit(dr::readRoom);
+            Future<MessagingManager> messages = executor.submit(dr::readMessage);
+            accountManager = waitFor(accounts);
+            eventManager = waitFor(events);
+            roomManager = waitFor(rooms);
+            messagingManager = waitFor(messages);
+        } finally {
+            executor.shutdown();
+        }
+        signupService = new SignupService(eventManager, accountManager, messagingManager);
+        savedVersions = getVersions();
+    }
+
+    // helper to get the modification versions of the managers, in the same order as journals
+    private long[] getVersions() {
+        return new long[]{accountManager.getVersion(), eventManager.getVersion(), roomManager.getVersion(),
+                messagingManager.getVersion()};
+    }
+
+    // helper for the constructor, gives back the ClassNotFoundException thrown when reading
+    private <T> T waitFor(Future<T> future) throws ClassNotFoundException {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof ClassNotFoundException) throw (ClassNotFoundException) ee.getCause();
+            throw new IllegalStateException("Unable to read data.", ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading data.", ie);
+        }
+    }
+
+    /**
+     * Gets the data of the conference, reads it from the files in the data folder the first time.
+     * @return the data shared by every session
+     * @throws ClassNotFoundException if the class of some stored data is not found
+     */
+    public static ConferenceData getInstance() throws ClassNotFoundException {
+        return getInstance(FileStorage.getDefault());
+    }
+
+    /**
+     * Gets the data of the conference kept in the given storage, reads it the first time or when the data of
+     * another storage was used before.
+     * @param storage the storage of the data
+     * @return the data shared by every session
+     * @throws ClassNotFoundException if the class of some stored data is not found
+     */
+    public static synchronized ConferenceData getInstance(Storage storage) throws ClassNotFoundException {
+        if (loaded == null || loaded.storage != storage) loaded = new ConferenceData(storage);
+        return loaded;
+    }
+
+    /**
+     * Reads the data from its storage again, used when the changes of a session are not saved. The managers read before
+     * are no longer recorded in the journals, so a change made to them later is not saved.
+     * @return the data read again
+     * @throws ClassNotFoundException if the class of some stored data is not found
+     */
+    public static synchronized ConferenceData reload() throws ClassNotFoundException {
+        if (loaded == null) {
+            loaded = new ConferenceData(FileStorage.getDefault());
+        } else {
+            loaded.detach();
+            loaded = new ConferenceData(loaded.storage);
+        }
+        return loaded;
+    }
+
+    // helper to stop the journals from recording changes to these managers once they are replaced
+    private void detach() {
+        accountManager.removeObserver(Journal.open(storage, journals[0]));
+        eventManager.removeObserver(Journal.open(storage, journals[1]));
+        roomManager.removeObserver(Journal.open(storage, journals[2]));
+        messagingManager.removeObserver(Journal.open(storage, journals[3]));
+    }
+
+    /**
+     * Saves the changes made to the managers by committing their journals. A manager which has not changed since it
+     * was last saved is skipped, so nothing is written for it.
+     * @return the names of the journals written, empty if nothing changed
+     */
+    public synchronized List<String> save() {
+        long[] versions = getVersions();
+        List<String> written = new ArrayList<>();
+        for (int i = 0; i < journals.length; i++) {
+            if (versions[i] == savedVersions[i]) continue;
+            if (Journal.open(storage, journals[i]).commit()) {
+                savedVersions[i] = versions[i];
+                written.add(journals[i]);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Gets the account manager shared by every session.
+     * @return the account manager
+     */
+    public AccountManager getAccountManager() {
+        return accountManager;
+    }
+
+    /**
+     * Gets the event manager shared by every session.
+     * @return the event manager
+     */
+    public EventManager getEventManager() {
+        return eventManager;
+    }
+
+    /**
+     * Gets the room manager shared by every session.
+     * @return the room manager
+     */
+    public RoomManager getRoomManager() {
+        return roomManager;
+    }
+
+    /**
+     * Gets the messaging manager shared by every session.
+     * @return the messaging manager
+     */
+    public MessagingManager getMessagingManager() {
+        return messagingManager;
+    }
+
+    /**
+     * Gets the signup service shared by every session, which signs users up for events and drops them.
+     * @return the signup service
+     */
+    public SignupService getSignupService() {
+        return signupService;
+    }
+}
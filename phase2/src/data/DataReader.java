@@ -12,25 +12,54 @@ import room.RoomSystem;
 /**
  * This class is a class for reading data from files and construct corresponding user cases and lower controller from
  * the information in file.
+ * Every manager is read from its snapshot, then the changes in its journal are replayed on top of it and the journal
+ * observes the manager for the following changes. Only the generations of the journal which are not in the snapshot are
+ * replayed. The header of every ser file is checked before it is read, so a cut
+ * off file is found without deserializing it.
+ * The data is read from the storage given when this reader is created, the files in the data folder by default.
  * @author Group0065
- * @version 1.0.1
+ * @version 1.0.2
  */
 public class DataReader{
+
+    private final Storage storage;
+
+    /**
+     * Creates a reader of the files in the data folder.
+     */
+    public DataReader() {
+        this(FileStorage.getDefault());
+    }
+
+    /**
+     * Creates a reader of the given storage.
+     * @param storage the storage to read the data from
+     */
+    public DataReader(Storage storage) {
+        this.storage = storage;
+    }
+
     /**
      * Reads the information of account.
      * @throws ClassNotFoundException if account does not exist
      * @return AccountManager stored in ser file
      */
     public AccountManager readAccount() throws ClassNotFoundException {
-        DataSaver<AccountManager> readAccount = new DataSaver<>();
-        AccountManager accountManager = readAccount.readFromFile(readAccount.getSrcPath("UserInfoDataBase.ser"));
-        if (accountManager == null) {
-            UserDataConverter converter = new UserDataConverter();
-            converter.convertData(readAccount.getSrcPath("UserTxtDataBase.txt"),
-                    readAccount.getSrcPath("UserInfoDataBase.ser"), readAccount);
-            accountManager = readAccount.readFromFile(readAccount.getSrcPath("UserInfoDataBase.ser"));
+        Journal journal = Journal.open(storage, "UserInfoJournal.log");
+        // the checkpointer moves the journal to a new generation while holding the journal
+        synchronized (journal) {
+            Snapshot<AccountManager> snapshot = Snapshot.of(storage.load("UserInfoDataBase.ser"));
+            if (snapshot == null) {
+                UserDataConverter converter = new UserDataConverter();
+                String path = new DataSaver<>().getSrcPath("UserTxtDataBase.txt");
+                snapshot = new Snapshot<>(0, converter.convertData(path));
+                storage.save("UserInfoDataBase.ser", snapshot);
+            }
+            AccountManager accountManager = snapshot.getData();
+            journal.replay(accountManager::applyRecord, snapshot.getGeneration());
+            accountManager.addObserver(journal);
+            return accountManager;
         }
-        return accountManager;
     }
 
     /**
@@ -39,10 +68,18 @@ public class DataReader{
      * @return MessagingManager stored in ser file
      */
     public MessagingManager readMessage() throws ClassNotFoundException {
-        DataSaver<MessagingManager> readMessage = new DataSaver<>();
-        MessagingManager messagingManager = readMessage.readFromFile(readMessage.getSrcPath("MessageDataBase.ser"));
-        if (messagingManager == null) messagingManager = new MessagingManager();
-        return messagingManager;
+        Journal journal = Journal.open(storage, "MessageJournal.log");
+        synchronized (journal) {
+            Snapshot<MessagingManager> snapshot = Snapshot.of(storage.load("MessageDataBase.ser"));
+            if (snapshot == null) snapshot = new Snapshot<>(0, new MessagingManager(storage));
+            MessagingManager messagingManager = snapshot.getData();
+            // the bodies of an old ser file are appended when it is read, it is saved again so that happens only once
+            if (messagingManager.hasAppendedBodies()) storage.save("MessageDataBase.ser", snapshot);
+            messagingManager.deleteOldMailboxes();
+            journal.replay(messagingManager::applyRecord, snapshot.getGeneration());
+            messagingManager.addObserver(journal);
+            return messagingManager;
+        }
     }
 
     /**
@@ -51,10 +88,15 @@ public class DataReader{
      * @return RoomManager stored in ser file
      */
     public RoomManager readRoom() throws ClassNotFoundException {
-        DataSaver<RoomManager> readRoom = new DataSaver<>();
-        RoomManager roomManager = readRoom.readFromFile(readRoom.getSrcPath("RoomDataBase.ser"));
-        if (roomManager == null) roomManager = new RoomManager();
-        return roomManager;
+        Journal journal = Journal.open(storage, "RoomJournal.log");
+        synchronized (journal) {
+            Snapshot<RoomManager> snapshot = Snapshot.of(storage.load("RoomDataBase.ser"));
+            if (snapshot == null) snapshot = new Snapshot<>(0, new RoomManager());
+            RoomManager roomManager = snapshot.getData();
+            journal.replay(roomManager::applyRecord, snapshot.getGeneration());
+            roomManager.addObserver(journal);
+            return roomManager;
+        }
     }
 
     /**
@@ -63,20 +105,25 @@ public class DataReader{
      * @return EventManager stored in ser file
      */
     public EventManager readEvent() throws ClassNotFoundException {
-        DataSaver<EventManager> readEvent = new DataSaver<>();
-        EventManager eventManager = readEvent.readFromFile(readEvent.getSrcPath("EventDataBase.ser"));
-        if (eventManager == null) eventManager = new EventManager();
-        return eventManager;
+        Journal journal = Journal.open(storage, "EventJournal.log");
+        synchronized (journal) {
+            Snapshot<EventManager> snapshot = Snapshot.of(storage.load("EventDataBase.ser"));
+            if (snapshot == null) snapshot = new Snapshot<>(0, new EventManager());
+            EventManager eventManager = snapshot.getData();
+            journal.replay(eventManager::applyRecord, snapshot.getGeneration());
+            eventManager.addObserver(journal);
+            return eventManager;
+        }
     }
 
     /**
-     * Creates event system with manager read from file
+     * Creates event system with the event manager of the storage shared by every session
      * @return EventSystem with EventManager stored in file
      */
     public EventSystem createEventSystem() {
         try {
-            EventManager eventManager = this.readEvent();
-            return new EventSystem(eventManager);
+            ConferenceData data = ConferenceData.getInstance(storage);
+            return new EventSystem(data.getEventManager(), data.getSignupService());
         } catch (ClassNotFoundException cNFE) {
             System.out.println("Unable to read stored events from file.");
             return null;
@@ -84,12 +131,12 @@ public class DataReader{
     }
 
     /**
-     * Creates message system with manager read from file
+     * Creates message system with the messaging manager of the storage shared by every session
      * @return MessageSystem with MessagingManager stored in ser file
      */
     public MessageSystem createMessageSystem(){
         try{
-            MessagingManager messagingManager = this.readMessage();
+            MessagingManager messagingManager = ConferenceData.getInstance(storage).getMessagingManager();
             return new MessageSystem(messagingManager);
         }catch(ClassNotFoundException cNFE){
             System.out.println("Unable to read stored messages from file.");
@@ -98,12 +145,12 @@ public class DataReader{
     }
 
     /**
-     * Creates room system with manager read from file
+     * Creates room system with the room manager of the storage shared by every session
      * @return RoomSystem with RoomManager stored in ser file
      */
     public RoomSystem createRoomSystem(){
         try{
-            RoomManager roomManager = this.readRoom();
+            RoomManager roomManager = ConferenceData.getInstance(storage).getRoomManager();
             return new RoomSystem(roomManager);
         }catch(ClassNotFoundException cNFE){
             System.out.println("Unable to read stored rooms from file.");
@@ -2,19 +2,68 @@ package data;
 
 import conferencemain.MainPresenter;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * A class which is used to save data and get data from file.
+ * A ser file starts with a header of a magic number, the length of the serialized data and its CRC32C checksum. It is
+ * written into a temporary file which is forced onto the disk and then renamed over the old file, so a crash while
+ * saving leaves either the old file or the new one, never a cut off file. Ser files written before the header was
+ * added are still read.
  * @param <T> lower controller classes of our conference system
  * @author Group0065
- * @version 1.0.2
+ * @version 1.0.3
  */
 public class DataSaver<T> {
 
+    private static final int MAGIC = 0x43534552;
+    private static final int HEADER = 16;
+
+    private final Storage storage;
     private MainPresenter wp = new MainPresenter();
 
     /**
-     * This method is used to read ser files from the given path
+     * Creates a saver of ser files which are not kept by a storage, the classes in them keep their own files in the
+     * data folder.
+     */
+    public DataSaver() {
+        this(null);
+    }
+
+    /**
+     * Creates a saver of the ser files of the given storage, the classes in them keep their own files in it too.
+     * @param storage the storage of the ser files
+     */
+    public DataSaver(Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Checks the header of the ser file at the given path without reading the data: the file has to exist and be as
+     * long as its header says. Files without a header can not be checked and pass.
+     * @param path path of ser file
+     * @return true if the file looks complete, else false
+     */
+    public boolean checkFile(String path) {
+        File file = new File(path);
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            if (file.length() > 0 && (file.length() < HEADER || input.readInt() != MAGIC)) return true;
+            if (file.length() >= HEADER && input.readLong() == file.length() - HEADER) return true;
+            wp.printErrorMessage("the file " + path + " is cut off");
+            return false;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to read from " + path);
+            return false;
+        }
+    }
+
+    /**
+     * This method is used to read ser files from the given path. The checksum in the header is checked before the
+     * data is deserialized.
      * @param path path of ser file
      * @return the constructed class from ser file
      * @throws ClassNotFoundException throws when the class information is lost in our coding package
@@ -24,14 +73,21 @@ public class DataSaver<T> {
         // Use the example from class
         try {
             InputStream file = new FileInputStream(path); // String path should be "fileName.ser"
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-
-            // deserialize the EventManager
-            @SuppressWarnings("unchecked")
-            T em = (T)input.readObject();
-            input.close();
-            return em;
+            DataInputStream buffer = new DataInputStream(new BufferedInputStream(file));
+            buffer.mark(4);
+            if (buffer.readInt() == MAGIC) {
+                byte[] data = new byte[(int) buffer.readLong()];
+                int checksum = buffer.readInt();
+                buffer.readFully(data);
+                buffer.close();
+                CRC32C crc = new CRC32C();
+                crc.update(data);
+                if ((int) crc.getValue() != checksum) throw new StreamCorruptedException("wrong checksum");
+                return readObject(new ByteArrayInputStream(data));
+            }
+            // a ser file written before the header
+            buffer.reset();
+            return readObject(buffer);
         } catch (IOException ex) {
 //            logger.log(Level.SEVERE, "Cannot read from input file, returning" +
 //                    "a new StudentManager.", ex);
@@ -41,22 +97,95 @@ public class DataSaver<T> {
     }
 
     /**
-     * Saves the class given to ser file with given path
+     * Reads a ser file which is already in memory, for example mapped into memory, in the same way as readFromFile.
+     * The checksum is computed over the buffer without copying it.
+     * @param buffer the content of the ser file
+     * @param path path of ser file, used in error messages
+     * @return the constructed class from ser file
+     * @throws ClassNotFoundException throws when the class information is lost in our coding package
+     */
+    public T readFromBuffer(ByteBuffer buffer, String path) throws ClassNotFoundException {
+        try {
+            if (buffer.remaining() >= HEADER && buffer.getInt(buffer.position()) == MAGIC) {
+                long length = buffer.getLong(buffer.position() + 4);
+                int checksum = buffer.getInt(buffer.position() + 12);
+                if (length != buffer.remaining() - HEADER) throw new EOFException("the file is cut off");
+                ByteBuffer data = buffer.duplicate();
+                data.position(buffer.position() + HEADER);
+                CRC32C crc = new CRC32C();
+                crc.update(data.duplicate());
+                if ((int) crc.getValue() != checksum) throw new StreamCorruptedException("wrong checksum");
+                buffer = data;
+            }
+            ByteBuffer content = buffer.duplicate();
+            return readObject(new InputStream() {
+                @Override
+                public int read() {
+                    return content.hasRemaining() ? content.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if (!content.hasRemaining()) return -1;
+                    length = Math.min(length, content.remaining());
+                    content.get(bytes, offset, length);
+                    return length;
+                }
+            });
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to read from " + path);
+            return null;
+        }
+    }
+
+    // helper for readFromFile
+    private T readObject(InputStream stream) throws IOException, ClassNotFoundException {
+        ObjectInput input = storage == null ? new ObjectInputStream(stream) : new StorageInputStream(stream, storage);
+
+        // deserialize the EventManager
+        @SuppressWarnings("unchecked")
+        T em = (T)input.readObject();
+        input.close();
+        return em;
+    }
+
+    /**
+     * Saves the class given to ser file with given path. The file is written to a temporary file first, forced onto
+     * the disk and then renamed to the given path in one step.
      * @param filePath path of ser file
      * @param var class we want to store
+     * @return true if saved successfully, else false
      */
-    public void saveToFile(String filePath, T var) {
+    public boolean saveToFile(String filePath, T var) {
 
+        File temp = new File(filePath + ".tmp");
         try {
-            OutputStream file = new FileOutputStream(filePath);
-            OutputStream buffer = new BufferedOutputStream(file);
-            ObjectOutput output = new ObjectOutputStream(buffer);
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            CRC32C crc = new CRC32C();
+            OutputStream checked = new CheckedOutputStream(data, crc);
+            ObjectOutput output = storage == null ? new ObjectOutputStream(checked)
+                    : new StorageOutputStream(checked, storage);
 
             // serialize the EventManager
             output.writeObject(var);
             output.close();
+
+            try (FileOutputStream file = new FileOutputStream(temp)) {
+                DataOutputStream buffer = new DataOutputStream(new BufferedOutputStream(file));
+                buffer.writeInt(MAGIC);
+                buffer.writeLong(data.size());
+                buffer.writeInt((int) crc.getValue());
+                data.writeTo(buffer);
+                buffer.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp.toPath(), new File(filePath).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
         } catch (IOException ex) {
+            temp.delete();
             wp.printErrorMessage("fail to save to " + filePath);
+            return false;
         }
     }
 
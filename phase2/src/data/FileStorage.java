@@ -0,0 +1,175 @@
+package data;
+
+import conferencemain.MainPresenter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A storage which keeps every snapshot in a ser file and every log in a file of its own, in one directory.
+ * Ser files are written by DataSaver. Each record in a log file is an int length followed by the record, a record cut
+ * off at the end of the file (for example by a crash during an append) is ignored. Files of records are
+ * MappedAppendFiles.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class FileStorage implements Storage {
+
+    private static FileStorage defaultStorage;
+
+    private final String directory;
+    private MainPresenter wp = new MainPresenter();
+
+    /**
+     * Creates a storage which keeps its files in the given directory.
+     * @param directory the path of the directory, ending with a separator
+     */
+    public FileStorage(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the storage in the data folder of the project, which is used by the conference system. There is only one
+     * of it, so everything reading or writing the same files shares the same journals.
+     * @return the storage in the data folder
+     */
+    public static synchronized FileStorage getDefault() {
+        if (defaultStorage == null) defaultStorage = new FileStorage(new DataSaver<>().getSrcPath(""));
+        return defaultStorage;
+    }
+
+    /**
+     * Gets the path of a file in this storage.
+     * @param name the name of the file
+     * @return the path of the file
+     */
+    public String getPath(String name) {
+        return directory + name;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return new File(getPath(name)).exists();
+    }
+
+    @Override
+    public <T> T load(String name) throws ClassNotFoundException {
+        DataSaver<T> saver = new DataSaver<>(this);
+        return saver.checkFile(getPath(name)) ? saver.readFromFile(getPath(name)) : null;
+    }
+
+    @Override
+    public <T> boolean save(String name, T data) {
+        return new DataSaver<T>(this).saveToFile(getPath(name), data);
+    }
+
+    @Override
+    public boolean replace(String from, String to) {
+        try {
+            Files.move(new File(getPath(from)).toPath(), new File(getPath(to)).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to replace " + getPath(to));
+            return false;
+        }
+    }
+
+    @Override
+    public boolean append(String name, List<byte[]> records) {
+        try (FileOutputStream file = new FileOutputStream(getPath(name), true)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file));
+            for (byte[] record : records) {
+                output.writeInt(record.length);
+                output.write(record);
+            }
+            output.flush();
+            file.getFD().sync();
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to save to " + getPath(name));
+            return false;
+        }
+    }
+
+    @Override
+    public long length(String name) {
+        return new File(getPath(name)).length();
+    }
+
+    @Override
+    public void replay(String name, long limit, Consumer<byte[]> reader) throws IOException {
+        File file = new File(getPath(name));
+        if (!file.exists()) return;
+        long position = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (position < limit) {
+                byte[] record;
+                try {
+                    record = new byte[input.readInt()];
+                    input.readFully(record);
+                } catch (EOFException eof) {
+                    break;
+                }
+                position += 4 + record.length;
+                reader.accept(record);
+            }
+        }
+    }
+
+    @Override
+    public boolean truncate(String name, long prefix) {
+        File file = new File(getPath(name));
+        try {
+            if (prefix >= file.length()) {
+                Files.deleteIfExists(file.toPath());
+                return true;
+            }
+            File rest = new File(getPath(name) + ".tmp");
+            try (RandomAccessFile input = new RandomAccessFile(file, "r");
+                 FileOutputStream output = new FileOutputStream(rest)) {
+                byte[] tail = new byte[(int) (input.length() - prefix)];
+                input.seek(prefix);
+                input.readFully(tail);
+                output.write(tail);
+                output.getFD().sync();
+            }
+            Files.move(rest.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to truncate " + getPath(name));
+            return false;
+        }
+    }
+
+    @Override
+    public AppendFile openFile(String name) throws IOException {
+        return MappedAppendFile.open(getPath(name));
+    }
+
+    @Override
+    public List<String> list(String prefix) {
+        String[] names = new File(directory).list((folder, name) -> name.startsWith(prefix));
+        List<String> files = names == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(names));
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public boolean delete(String name) {
+        try {
+            MappedAppendFile.delete(getPath(name));
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to delete " + getPath(name));
+            return false;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package data;
+
+import conferencemain.MainPresenter;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.*;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * An append-only journal of the mutations applied to one lower controller (use case) class.
+ * It observes a manager, keeps every mutation as a compact record, and appends the records to a log in its storage when
+ * the user saves. When reading data, the journal is replayed on top of the last snapshot so the snapshot only needs
+ * to be rewritten once in a while instead of on every save.
+ * Each record is the operation name followed by its tagged arguments.
+ * The log is split into generations. A checkpoint closes the current generation and writes it into a new snapshot,
+ * which keeps the first generation it does not hold, so a crash between writing the snapshot and removing the old
+ * generations never makes a record be replayed twice.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class Journal implements PropertyChangeListener {
+
+    private static final Map<Storage, Map<String, Journal>> openJournals = new HashMap<>();
+
+    private final Storage storage;
+    private final String name;
+    private final List<byte[]> pending = new ArrayList<>();
+    private long generation;
+    private MainPresenter wp = new MainPresenter();
+
+    private Journal(Storage storage, String name) {
+        this.storage = storage;
+        this.name = name;
+    }
+
+    /**
+     * Gets the journal kept in the given storage under the given name. There is only one journal for each log, so
+     * every manager read from the same snapshot writes to the same journal.
+     * @param storage the storage which keeps the journal
+     * @param name the name of the journal
+     * @return the journal with the given name
+     */
+    public static synchronized Journal open(Storage storage, String name) {
+        return openJournals.computeIfAbsent(storage, k -> new HashMap<>())
+                .computeIfAbsent(name, k -> new Journal(storage, name));
+    }
+
+    /**
+     * Discards the records since the last commit in every opened journal.
+     */
+    public static synchronized void discardAll() {
+        for (Map<String, Journal> journals : openJournals.values()) {
+            for (Journal journal : journals.values()) {
+                journal.discard();
+            }
+        }
+    }
+
+    /**
+     * Records a mutation fired by the observed manager. The property name is the operation and the new value is the
+     * array of arguments of the operation. The record is kept in memory until the journal is committed.
+     * @param evt the event fired by the manager
+     */
+    @Override
+    public synchronized void propertyChange(PropertyChangeEvent evt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            Object[] args = (Object[]) evt.getNewValue();
+            output.writeUTF(evt.getPropertyName());
+            output.writeByte(args.length);
+            for (Object arg : args) {
+                writeValue(output, arg);
+            }
+            output.close();
+            pending.add(bytes.toByteArray());
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to record " + evt.getPropertyName() + " in " + name);
+        }
+    }
+
+    /**
+     * Appends all the records since the last commit to the log in the storage.
+     * @return true if all records are written, else false
+     */
+    public synchronized boolean commit() {
+        if (pending.isEmpty()) return true;
+        if (!storage.append(getLogName(generation), pending)) return false;
+        pending.clear();
+        return true;
+    }
+
+    /**
+     * Drops all the records since the last commit, used when the user does not want to save the data.
+     */
+    public synchronized void discard() {
+        pending.clear();
+    }
+
+    /**
+     * Replays every record of the generations from the given one on, in order, through the given operation, and
+     * appends the following commits to the last generation found.
+     * A record cut off at the end of the log (for example by a crash during a save) is ignored.
+     * @param apply the operation which applies one record (operation name and arguments) to a manager
+     * @param first the first generation which is not written in the snapshot the records are applied to
+     * @return the number of records replayed
+     */
+    public synchronized int replay(BiConsumer<String, Object[]> apply, long first) {
+        generation = first;
+        while (storage.length(getLogName(generation + 1)) > 0) generation++;
+        return replay(apply, first, generation);
+    }
+
+    /**
+     * Replays every record of the given generations, in order, through the given operation.
+     * @param apply the operation which applies one record (operation name and arguments) to a manager
+     * @param first the first generation to replay
+     * @param last the last generation to replay
+     * @return the number of records replayed
+     */
+    public synchronized int replay(BiConsumer<String, Object[]> apply, long first, long last) {
+        int[] count = {0};
+        for (long current = first; current <= last; current++) {
+            String log = getLogName(current);
+            try {
+                storage.replay(log, Long.MAX_VALUE, record -> {
+                    String operation = null;
+                    try {
+                        DataInputStream recordInput = new DataInputStream(new ByteArrayInputStream(record));
+                        operation = recordInput.readUTF();
+                        Object[] args = new Object[recordInput.readByte()];
+                        for (int i = 0; i < args.length; i++) {
+                            args[i] = readValue(recordInput);
+                        }
+                        apply.accept(operation, args);
+                        count[0]++;
+                    } catch (IOException | RuntimeException ex) {
+                        wp.printErrorMessage("fail to replay " + operation + " from " + log);
+                    }
+                });
+            } catch (IOException ex) {
+                wp.printErrorMessage("fail to read from " + log);
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * Starts a new generation for the following commits, so the committed ones can be written into a new snapshot
+     * while the users keep saving. Nothing is started if the current generation is still empty.
+     * @return the last generation which is closed, it is before the first one given to replay if nothing was
+     * committed since the snapshot
+     */
+    public synchronized long rotate() {
+        if (storage.length(getLogName(generation)) > 0) generation++;
+        return generation - 1;
+    }
+
+    /**
+     * Removes the generations up to the given one, after they have been written into a new snapshot. Generations
+     * left before them by a checkpoint which did not finish are removed as well.
+     * @param last the last generation written into the snapshot
+     * @return true if removed successfully, else false
+     */
+    public synchronized boolean delete(long last) {
+        boolean deleted = true;
+        for (long current = last; current >= 0 && storage.length(getLogName(current)) > 0; current--) {
+            deleted &= storage.truncate(getLogName(current), Long.MAX_VALUE);
+        }
+        return deleted;
+    }
+
+    // helper to get the name of the log of a generation, generation 0 is the log written before there were any
+    private String getLogName(long generation) {
+        return generation == 0 ? name : name + "." + generation;
+    }
+
+    // helper for propertyChange, writes one argument with a tag of its type
+    private void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte('N');
+        } else if (value instanceof String) {
+            output.writeByte('S');
+            output.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            output.writeByte('I');
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte('J');
+            output.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte('Z');
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            output.writeByte('T');
+            output.writeLong(((Timestamp) value).getTime());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            output.writeByte('L');
+            output.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(output, element);
+            }
+        } else if (value instanceof Integer[][]) {
+            Integer[][] slots = (Integer[][]) value;
+            output.writeByte('R');
+            output.writeInt(slots.length);
+            for (Integer[] slot : slots) {
+                output.writeInt(slot[0]);
+                output.writeInt(slot[1]);
+            }
+        } else if (value instanceof int[][]) {
+            int[][] week = (int[][]) value;
+            output.writeByte('W');
+            output.writeInt(week.length);
+            for (int[] day : week) {
+                output.writeInt(day.length);
+                for (int minute : day) {
+                    output.writeInt(minute);
+                }
+            }
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    // helper for replay, reads one argument written by writeValue
+    private Object readValue(DataInputStream input) throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case 'N':
+                return null;
+            case 'S':
+                return input.readUTF();
+            case 'I':
+                return input.readInt();
+            case 'J':
+                return input.readLong();
+            case 'Z':
+                return input.readBoolean();
+            case 'T':
+                return new Timestamp(input.readLong());
+            case 'L':
+                int size = input.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(input));
+                }
+                return list;
+            case 'R':
+                Integer[][] slots = new Integer[input.readInt()][];
+                for (int i = 0; i < slots.length; i++) {
+                    slots[i] = new Integer[]{input.readInt(), input.readInt()};
+                }
+                return slots;
+            case 'W':
+                int[][] week = new int[input.readInt()][];
+                for (int i = 0; i < week.length; i++) {
+                    week[i] = new int[input.readInt()];
+                    for (int j = 0; j < week[i].length; j++) {
+                        week[i][j] = input.readInt();
+                    }
+                }
+                return week;
+            default:
+                throw new StreamCorruptedException("unknown tag " + tag + " in " + name);
+        }
+    }
+}
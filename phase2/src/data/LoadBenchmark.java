@@ -0,0 +1,111 @@
+package data;
+
+import account.AccountManager;
+import event.EventManager;
+import message.MessagingManager;
+import room.RoomManager;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * A benchmark of reading the data of the conference, the four managers one after another with a data reader and all
+ * four at once on the pool of the conference data.
+ * The snapshots are kept in a memory storage, so the times are the times to deserialize the managers and not to read
+ * the disk. Reading in parallel only helps when there is more than one core, the number of cores is printed first.
+ * Run it with the number of accounts and the number of talks, 50000 and 10000 by default. Every account signs up for
+ * five random talks and adds three random friends and gets two notices, and every talk is held in one of 50 rooms.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class LoadBenchmark {
+
+    private static final int RUNS = 10;
+    private static final long HOUR = 3600000L;
+
+    /**
+     * Runs the benchmark and prints the average time of each way to read.
+     * @param args the number of accounts and the number of talks, optional
+     * @throws Exception if the data can not be read
+     */
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        Storage storage = new MemoryStorage();
+        fill(storage, users, events);
+        System.out.println(users + " accounts, " + events + " talks, " + Runtime.getRuntime().availableProcessors()
+                + " cores, average of " + RUNS + " runs");
+
+        DataReader reader = new DataReader(storage);
+        ConferenceData.getInstance(storage);
+        Object[] kept = null;
+        for (int i = 0; i < RUNS; i++) {
+            kept = readAll(reader);
+            ConferenceData.reload();
+        }
+        long sequential = 0;
+        long parallel = 0;
+        for (int i = 0; i < RUNS; i++) {
+            // the data read before is still held, as reload holds the data it replaces
+            System.gc();
+            long start = System.nanoTime();
+            kept = readAll(reader);
+            sequential += System.nanoTime() - start;
+            System.gc();
+            start = System.nanoTime();
+            ConferenceData.reload();
+            parallel += System.nanoTime() - start;
+        }
+        System.out.printf("  one after another: %d ms%n", sequential / RUNS / 1000000);
+        System.out.printf("  in parallel: %d ms%n", parallel / RUNS / 1000000);
+    }
+
+    // helper to read the four managers one after another
+    private static Object[] readAll(DataReader reader) throws ClassNotFoundException {
+        return new Object[]{reader.readAccount(), reader.readEvent(), reader.readRoom(), reader.readMessage()};
+    }
+
+    // helper to save the snapshots of the four managers into the storage
+    private static void fill(Storage storage, int users, int events) {
+        Random random = new Random(1);
+        AccountManager accounts = new AccountManager();
+        EventManager talks = new EventManager();
+        RoomManager rooms = new RoomManager();
+        MessagingManager messages = new MessagingManager(storage);
+        int[][] openHours = new int[7][];
+        Arrays.fill(openHours, new int[]{0, 1440});
+        for (int r = 0; r < 50; r++) {
+            rooms.applyRecord("addRoom", new Object[]{100, openHours, "room" + r});
+        }
+        long base = Timestamp.valueOf("2030-01-01 09:00:00").getTime();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            Timestamp startTime = new Timestamp(base + HOUR * i);
+            Timestamp endTime = new Timestamp(base + HOUR * i + HOUR / 2);
+            String id = talks.createEvent("Talk", "talk" + i, startTime, endTime, "room" + (i % 50),
+                    "description of talk " + i, 100, Collections.singletonList("speaker" + (i % 200)));
+            rooms.addEventToRoom("room" + (i % 50), id, startTime, endTime);
+            ids.add(id);
+        }
+        for (int i = 0; i < users; i++) {
+            String user = "user" + i;
+            accounts.addAccount(i < 200 ? "Speaker" : "Attendee", user, "Pass" + i + "Aa");
+            for (int k = 0; k < 5; k++) {
+                int talk = random.nextInt(events);
+                accounts.signUpEvent(new Timestamp(base + HOUR * talk), new Timestamp(base + HOUR * talk + HOUR / 2),
+                        ids.get(talk), user);
+                talks.addAttendee(user, ids.get(talk));
+            }
+            for (int k = 0; k < 3; k++) {
+                accounts.addFriend(user, "user" + random.nextInt(users));
+            }
+            for (int k = 0; k < 2; k++) {
+                messages.sendNotice(user, "Welcome", "Notice " + k + " for " + user + ".");
+            }
+        }
+        storage.save("UserInfoDataBase.ser", new Snapshot<>(0, accounts));
+        storage.save("EventDataBase.ser", new Snapshot<>(0, talks));
+        storage.save("RoomDataBase.ser", new Snapshot<>(0, rooms));
+        storage.save("MessageDataBase.ser", new Snapshot<>(0, messages));
+    }
+}
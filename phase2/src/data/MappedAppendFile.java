@@ -0,0 +1,194 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only file of records, such as the bodies of messages, read and written through memory mapping.
+ * A record is appended once and then read back by its position and length, so the records live in the page cache
+ * instead of the heap. The file is split into regions of 4 MB and a record never crosses two regions unless it is
+ * larger than a region, in which case it starts a region and is read and written through the file channel. When a
+ * record starts a new region, the gap left at the end of the last one starts with an int 0.
+ * Only the start of a region up to its records is mapped, at least 64 KB, and the mapping doubles when a record goes
+ * past it, so a file with few records stays small on the disk and in memory.
+ * The first 8 bytes of the file keep the end of the records written, it is only updated by force.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class MappedAppendFile implements AppendFile {
+
+    private static final Map<String, MappedAppendFile> openFiles = new HashMap<>();
+    private static final int HEADER = 8;
+    private static final int MIN_MAPPING = 1 << 16;
+
+    /**
+     * The size of a mapped region.
+     */
+    public static final int REGION = 1 << 22;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private long end;
+
+    private MappedAppendFile(String path) throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean empty = channel.size() < HEADER;
+        end = empty ? HEADER : region(0, HEADER).getLong(0);
+        if (end < HEADER) end = HEADER;
+    }
+
+    /**
+     * Gets the file at the given path, it is created if it does not exist. There is only one of each file, so every
+     * manager which appends to the same file shares it.
+     * @param path path of the file
+     * @return the file at the given path
+     * @throws IOException if unable to open the file
+     */
+    public static synchronized MappedAppendFile open(String path) throws IOException {
+        MappedAppendFile file = openFiles.get(path);
+        if (file == null) {
+            file = new MappedAppendFile(path);
+            openFiles.put(path, file);
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the file at the given path, it can not be used afterwards.
+     * @param path path of the file
+     * @throws IOException if unable to delete
+     */
+    public static synchronized void delete(String path) throws IOException {
+        MappedAppendFile file = openFiles.remove(path);
+        if (file != null) file.close();
+        Files.deleteIfExists(Paths.get(path));
+    }
+
+    /**
+     * Gets the position of the first record in the file.
+     * @return the position of the first record
+     */
+    @Override
+    public long getStart() {
+        return HEADER;
+    }
+
+    /**
+     * Gets the position right after the last record appended.
+     * @return the end of the records
+     */
+    @Override
+    public synchronized long getEnd() {
+        return end;
+    }
+
+    /**
+     * Appends a record at the end of the file.
+     * @param record the bytes of the record
+     * @return the position of the record, used with its length to read it
+     * @throws IOException if unable to write
+     */
+    @Override
+    public synchronized long append(byte[] record) throws IOException {
+        if (record.length > REGION) {
+            // a large record starts a region of its own as well
+            if (end % REGION != 0) {
+                if (REGION - end % REGION >= 4) markGap();
+                end += REGION - end % REGION;
+            }
+            long position = end;
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            end += record.length;
+            return position;
+        }
+        // start the next region when the record does not fit in what is left of this one, a 0 marks the gap
+        if (end % REGION + record.length > REGION) {
+            if (REGION - end % REGION >= 4) markGap();
+            end += REGION - end % REGION;
+        }
+        long position = end;
+        ByteBuffer region = region((int) (position / REGION), (int) (position % REGION) + record.length).duplicate();
+        region.position((int) (position % REGION));
+        region.put(record);
+        end += record.length;
+        return position;
+    }
+
+    /**
+     * Reads the record at the given position.
+     * @param position the position of the record given by append
+     * @param length the length of the record
+     * @return the bytes of the record
+     * @throws IOException if unable to read
+     */
+    @Override
+    public byte[] read(long position, int length) throws IOException {
+        byte[] record = new byte[length];
+        if (length > REGION) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("record is cut off");
+            }
+            return record;
+        }
+        ByteBuffer region = region((int) (position / REGION), (int) (position % REGION) + length).duplicate();
+        region.position((int) (position % REGION));
+        region.get(record);
+        return record;
+    }
+
+    /**
+     * Writes the end of the records into the header and forces the file onto the disk. Records should be forced
+     * before anything which refers to them is saved.
+     * @throws IOException if unable to write
+     */
+    @Override
+    public synchronized void force() throws IOException {
+        region(0, HEADER).putLong(0, end);
+        for (MappedByteBuffer region : regions) {
+            if (region != null) region.force();
+        }
+        channel.force(false);
+    }
+
+    // helper to write the 0 which marks the gap from the end of the records to the end of their region
+    private void markGap() throws IOException {
+        int offset = (int) (end % REGION);
+        region((int) (end / REGION), offset + 4).putInt(offset, 0);
+    }
+
+    // helper to map the region with the given index up to at least the given number of bytes, the file grows to cover
+    // the mapping
+    private synchronized MappedByteBuffer region(int index, int needed) throws IOException {
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        if (region == null || region.capacity() < needed) {
+            int size = MIN_MAPPING;
+            while (size < needed) size <<= 1;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * REGION, size);
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    // helper to close the file and let go of its mappings, so a deleted file is not kept in memory through them
+    private synchronized void close() throws IOException {
+        regions.clear();
+        channel.close();
+    }
+}
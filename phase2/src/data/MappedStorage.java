@@ -0,0 +1,215 @@
+package data;
+
+import conferencemain.MainPresenter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A storage which reads its files through memory mapping, in one directory.
+ * Snapshots are ser files written by DataSaver, they are mapped into memory to be checked and read instead of being
+ * copied onto the heap. Each log is split into segments of about 4 MB, files named after the log followed by "-" and
+ * the number of the segment, each one a MappedAppendFile of records which start with their int length. Cutting off the
+ * start of a log deletes the segments before the cut, and the position of the cut inside the first segment left is
+ * kept in a file named after the log followed by "-start".
+ * The position of a record is the number of its segment times 2^32 plus its position in the segment. Files of records
+ * are MappedAppendFiles as well.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class MappedStorage implements Storage {
+
+    private static final long SPAN = 1L << 32;
+
+    private final String directory;
+    private MainPresenter wp = new MainPresenter();
+
+    /**
+     * Creates a storage which keeps its files in the given directory.
+     * @param directory the path of the directory, ending with a separator
+     */
+    public MappedStorage(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return new File(directory + name).exists();
+    }
+
+    @Override
+    public <T> T load(String name) throws ClassNotFoundException {
+        String path = directory + name;
+        try (FileChannel channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new DataSaver<T>(this).readFromBuffer(buffer, path);
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to read from " + path);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> boolean save(String name, T data) {
+        return new DataSaver<T>(this).saveToFile(directory + name, data);
+    }
+
+    @Override
+    public boolean replace(String from, String to) {
+        try {
+            Files.move(new File(directory + from).toPath(), new File(directory + to).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to replace " + directory + to);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean append(String name, List<byte[]> records) {
+        try {
+            List<Long> segments = getSegments(name);
+            long segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            MappedAppendFile file = MappedAppendFile.open(getSegmentPath(name, segment));
+            for (byte[] record : records) {
+                byte[] bytes = ByteBuffer.allocate(4 + record.length).putInt(record.length).put(record).array();
+                // a full segment is closed and the next one started
+                if (file.getEnd() > file.getStart() && file.getEnd() + bytes.length > MappedAppendFile.REGION) {
+                    file.force();
+                    segment++;
+                    file = MappedAppendFile.open(getSegmentPath(name, segment));
+                }
+                file.append(bytes);
+            }
+            file.force();
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to save to " + directory + name);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized long length(String name) {
+        try {
+            List<Long> segments = getSegments(name);
+            if (segments.isEmpty()) return 0;
+            long segment = segments.get(segments.size() - 1);
+            return segment * SPAN + MappedAppendFile.open(getSegmentPath(name, segment)).getEnd();
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to read from " + directory + name);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void replay(String name, long limit, Consumer<byte[]> reader) throws IOException {
+        long start = readStart(name);
+        for (long segment : getSegments(name)) {
+            MappedAppendFile file = MappedAppendFile.open(getSegmentPath(name, segment));
+            long position = Math.max(file.getStart(), start - segment * SPAN);
+            while (position < file.getEnd() && segment * SPAN + position < limit) {
+                long left = MappedAppendFile.REGION - position % MappedAppendFile.REGION;
+                int length = left < 4 ? 0 : ByteBuffer.wrap(file.read(position, 4)).getInt();
+                if (length == 0) {
+                    // the gap at the end of a region
+                    position += left;
+                    continue;
+                }
+                reader.accept(Arrays.copyOfRange(file.read(position, 4 + length), 4, 4 + length));
+                position += 4 + length;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean truncate(String name, long prefix) {
+        try {
+            List<Long> segments = getSegments(name);
+            boolean kept = false;
+            for (long segment : segments) {
+                String path = getSegmentPath(name, segment);
+                if (segment * SPAN + MappedAppendFile.open(path).getEnd() <= prefix) {
+                    MappedAppendFile.delete(path);
+                } else {
+                    kept = true;
+                }
+            }
+            File start = new File(directory + name + "-start");
+            if (!kept) {
+                Files.deleteIfExists(start.toPath());
+                return true;
+            }
+            File temp = new File(start.getPath() + ".tmp");
+            try (FileOutputStream output = new FileOutputStream(temp)) {
+                new DataOutputStream(output).writeLong(Math.max(prefix, readStart(name)));
+                output.getFD().sync();
+            }
+            Files.move(temp.toPath(), start.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to truncate " + directory + name);
+            return false;
+        }
+    }
+
+    // helper to get the path of a segment of a log
+    private String getSegmentPath(String name, long segment) {
+        return directory + name + "-" + segment;
+    }
+
+    // helper to get the numbers of the segments of a log, in order
+    private List<Long> getSegments(String name) {
+        List<Long> segments = new ArrayList<>();
+        String[] files = new File(directory).list();
+        if (files == null) return segments;
+        for (String file : files) {
+            String suffix = file.startsWith(name + "-") ? file.substring(name.length() + 1) : "";
+            if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) segments.add(Long.parseLong(suffix));
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // helper to read the position the log starts at, 0 if the start was never cut off
+    private long readStart(String name) throws IOException {
+        File start = new File(directory + name + "-start");
+        if (!start.exists()) return 0;
+        try (DataInputStream input = new DataInputStream(new FileInputStream(start))) {
+            return input.readLong();
+        }
+    }
+
+    @Override
+    public AppendFile openFile(String name) throws IOException {
+        return MappedAppendFile.open(directory + name);
+    }
+
+    @Override
+    public List<String> list(String prefix) {
+        String[] names = new File(directory).list((folder, name) -> name.startsWith(prefix));
+        List<String> files = names == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(names));
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public boolean delete(String name) {
+        try {
+            MappedAppendFile.delete(directory + name);
+            return true;
+        } catch (IOException ex) {
+            wp.printErrorMessage("fail to delete " + directory + name);
+            return false;
+        }
+    }
+}
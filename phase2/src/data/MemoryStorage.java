@@ -0,0 +1,164 @@
+package data;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A storage which keeps everything in memory and never touches the disk, used for tests, benchmarks and load tests.
+ * Snapshots are kept serialized, so a loaded snapshot is a new copy just like one read from a file. The position of a
+ * record in a log is the number of records appended to the log before it. Files of records are byte arrays which grow
+ * as records are appended, so nothing a snapshot refers to is ever written into the data folder.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class MemoryStorage implements Storage {
+
+    private final Map<String, byte[]> snapshots = new HashMap<>();
+    private final Map<String, List<byte[]>> logs = new HashMap<>();
+    // position of the first record kept in each log
+    private final Map<String, Long> starts = new HashMap<>();
+    private final Map<String, MemoryFile> files = new HashMap<>();
+
+    @Override
+    public synchronized boolean exists(String name) {
+        return snapshots.containsKey(name);
+    }
+
+    @Override
+    public <T> T load(String name) throws ClassNotFoundException {
+        byte[] snapshot;
+        synchronized (this) {
+            snapshot = snapshots.get(name);
+        }
+        if (snapshot == null) return null;
+        try (ObjectInputStream input = new StorageInputStream(new ByteArrayInputStream(snapshot), this)) {
+            @SuppressWarnings("unchecked")
+            T data = (T) input.readObject();
+            return data;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public <T> boolean save(String name, T data) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream output = new StorageOutputStream(bytes, this);
+            output.writeObject(data);
+            output.close();
+            synchronized (this) {
+                snapshots.put(name, bytes.toByteArray());
+            }
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean replace(String from, String to) {
+        byte[] snapshot = snapshots.remove(from);
+        if (snapshot == null) return false;
+        snapshots.put(to, snapshot);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean append(String name, List<byte[]> records) {
+        List<byte[]> log = logs.computeIfAbsent(name, k -> new ArrayList<>());
+        for (byte[] record : records) {
+            log.add(record.clone());
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized long length(String name) {
+        List<byte[]> log = logs.get(name);
+        return log == null || log.isEmpty() ? 0 : starts.getOrDefault(name, 0L) + log.size();
+    }
+
+    @Override
+    public void replay(String name, long limit, Consumer<byte[]> reader) {
+        List<byte[]> records;
+        synchronized (this) {
+            List<byte[]> log = logs.getOrDefault(name, Collections.emptyList());
+            long start = starts.getOrDefault(name, 0L);
+            records = new ArrayList<>(log.subList(0, (int) Math.max(0, Math.min(log.size(), limit - start))));
+        }
+        for (byte[] record : records) {
+            reader.accept(record);
+        }
+    }
+
+    @Override
+    public synchronized boolean truncate(String name, long prefix) {
+        List<byte[]> log = logs.get(name);
+        if (log == null) return true;
+        long start = starts.getOrDefault(name, 0L);
+        int removed = (int) Math.max(0, Math.min(log.size(), prefix - start));
+        log.subList(0, removed).clear();
+        starts.put(name, start + removed);
+        return true;
+    }
+
+    @Override
+    public synchronized AppendFile openFile(String name) {
+        return files.computeIfAbsent(name, k -> new MemoryFile());
+    }
+
+    @Override
+    public synchronized List<String> list(String prefix) {
+        List<String> names = new ArrayList<>();
+        for (String name : files.keySet()) {
+            if (name.startsWith(prefix)) names.add(name);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Override
+    public synchronized boolean delete(String name) {
+        files.remove(name);
+        return true;
+    }
+
+    // a file of records kept in memory, the position of a record is the number of bytes before it
+    private static class MemoryFile implements AppendFile {
+
+        private byte[] bytes = new byte[64];
+        private int end;
+
+        @Override
+        public long getStart() {
+            return 0;
+        }
+
+        @Override
+        public synchronized long getEnd() {
+            return end;
+        }
+
+        @Override
+        public synchronized long append(byte[] record) {
+            if (end + record.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + record.length));
+            }
+            System.arraycopy(record, 0, bytes, end, record.length);
+            end += record.length;
+            return end - record.length;
+        }
+
+        @Override
+        public synchronized byte[] read(long position, int length) throws IOException {
+            if (position < 0 || position + length > end) throw new EOFException("record is cut off");
+            return Arrays.copyOfRange(bytes, (int) position, (int) position + length);
+        }
+
+        @Override
+        public void force() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A table of names, such as usernames and room names, each kept once at a fixed position in the order it was added.
+ * It is written at the start of a ser file by SnapshotWriter.writeTable, and every name written after it is written
+ * as its position in the table, which takes far less bytes than the name.
+ * A table can be kept from one save to the next, so a manager can remember the positions of the names of an entity
+ * which did not change and write them again without looking each name up. A name is never taken out of a table.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class NameTable {
+    private String[] names;
+    private int size;
+    // the position plus one of every name by its hash with open addressing, made when a name is first looked up, and
+    // the hash of the name in each slot, so other names in the way are passed without reading their text
+    private int[] slots;
+    private int[] hashes;
+
+    /**
+     * Creates an empty table.
+     */
+    public NameTable() {
+        this.names = new String[1024];
+    }
+
+    /**
+     * Creates a table of the given names, in order, such as a table read from a ser file.
+     * @param names the names, each only once
+     */
+    public NameTable(String[] names) {
+        this.names = names;
+        this.size = names.length;
+    }
+
+    /**
+     * Gets the number of names in the table.
+     * @return the number of names
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the name at a position of the table.
+     * @param position the position, from 0
+     * @return the name at the position, or null if the position is -1
+     */
+    public String get(int position) {
+        if (position == -1) return null;
+        if (position >= size) throw new IndexOutOfBoundsException("no name at " + position);
+        return names[position];
+    }
+
+    /**
+     * Gets the position of a name in the table.
+     * @param name the name
+     * @return the position of the name, or -1 if the name is null or not in the table
+     */
+    public int indexOf(String name) {
+        if (name == null) return -1;
+        if (slots == null) makeSlots(size * 2);
+        int mask = slots.length - 1;
+        int hash = name.hashCode();
+        for (int slot = slotOf(hash, mask); slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && isAt(name, slots[slot] - 1)) return slots[slot] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a name at the end of the table if it is not in the table yet.
+     * @param name the name
+     * @return the position of the name, or -1 if the name is null
+     */
+    public int add(String name) {
+        if (name == null) return -1;
+        if (slots == null) makeSlots(size * 2);
+        int mask = slots.length - 1;
+        int hash = name.hashCode();
+        int slot = slotOf(hash, mask);
+        while (slots[slot] != 0) {
+            if (hashes[slot] == hash && isAt(name, slots[slot] - 1)) return slots[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        if (size == names.length) names = Arrays.copyOf(names, Math.max(size * 2, 16));
+        names[size++] = name;
+        slots[slot] = size;
+        hashes[slot] = hash;
+        // the slots are kept at most half full, so a name is found after looking at few slots
+        if (size * 2 > slots.length) makeSlots(slots.length * 2);
+        return size - 1;
+    }
+
+    // helper to put every name into a new array of slots of at least the given size
+    private void makeSlots(int least) {
+        slots = new int[Math.max(Integer.highestOneBit(Math.max(least, 8) - 1) << 1, 16)];
+        hashes = new int[slots.length];
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int hash = names[i].hashCode();
+            int slot = slotOf(hash, mask);
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = i + 1;
+            hashes[slot] = hash;
+        }
+    }
+
+    // helper to check if the name at a position is the given name
+    private boolean isAt(String name, int position) {
+        String found = names[position];
+        return found == name || found.equals(name);
+    }
+
+    // helper to get the first slot to look at for a hash, the hash is spread over the bits as names such as user1 and
+    // user2 have hashes next to each other
+    private static int slotOf(int hash, int mask) {
+        return (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+    }
+}
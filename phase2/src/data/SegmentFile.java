@@ -0,0 +1,203 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A file of separately addressable segments of bytes, each stored under a key.
+ * The segments are appended one after another to a file of records in a storage, followed by an index of key, position
+ * and length, and the file ends with the position and length of the index. Opening the file only reads the index, a
+ * segment is read when it is asked for.
+ * A segment file is never changed once written, a new one is written instead. The names of the files written with the
+ * same prefix go up with the time they are written, so the newest file has the last name.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SegmentFile {
+
+    private static final int TRAILER = 12;
+    private static long lastStamp;
+
+    private final String name;
+    private final AppendFile file;
+    private final Map<String, long[]> index;
+
+    private SegmentFile(String name, AppendFile file, Map<String, long[]> index) {
+        this.name = name;
+        this.file = file;
+        this.index = index;
+    }
+
+    /**
+     * Opens the segment file with the given name in the given storage by reading its index.
+     * @param storage the storage which keeps the file
+     * @param name the name of the segment file
+     * @return the opened segment file
+     * @throws IOException if unable to read the index
+     */
+    public static SegmentFile open(Storage storage, String name) throws IOException {
+        AppendFile file = storage.openFile(name);
+        long end = file.getEnd();
+        if (end - file.getStart() < TRAILER) throw new StreamCorruptedException("no index in " + name);
+        ByteBuffer trailer = ByteBuffer.wrap(file.read(end - TRAILER, TRAILER));
+        long start = trailer.getLong();
+        int length = trailer.getInt();
+        if (start < file.getStart() || length < 0 || start + length > end - TRAILER) {
+            throw new StreamCorruptedException("bad index in " + name);
+        }
+        DataInputStream indexInput = new DataInputStream(new ByteArrayInputStream(file.read(start, length)));
+        int size = indexInput.readInt();
+        Map<String, long[]> index = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            index.put(indexInput.readUTF(), new long[]{indexInput.readLong(), indexInput.readInt()});
+        }
+        return new SegmentFile(name, file, index);
+    }
+
+    /**
+     * Reads every segment of a segment file written before segment files were kept in a storage, which is a plain
+     * file of the segments followed by the index and then the position of the index in 8 bytes. Such files are only
+     * read to move their segments into the current layout.
+     * @param path path of the file
+     * @return the bytes of every segment by its key, in the order they were written
+     * @throws IOException if unable to read
+     */
+    public static Map<String, byte[]> readOldLayout(String path) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(path, "r")) {
+            if (input.length() < 8) throw new StreamCorruptedException("no index in " + path);
+            input.seek(input.length() - 8);
+            long start = input.readLong();
+            if (start < 0 || start > input.length() - 8) throw new StreamCorruptedException("bad index in " + path);
+            byte[] indexBytes = new byte[(int) (input.length() - 8 - start)];
+            input.seek(start);
+            input.readFully(indexBytes);
+            DataInputStream indexInput = new DataInputStream(new ByteArrayInputStream(indexBytes));
+            int size = indexInput.readInt();
+            Map<String, byte[]> segments = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                String key = indexInput.readUTF();
+                long position = indexInput.readLong();
+                int length = indexInput.readInt();
+                if (position < 0 || length < 0 || position + length > start) {
+                    throw new StreamCorruptedException("bad segment " + key + " in " + path);
+                }
+                byte[] segment = new byte[length];
+                input.seek(position);
+                input.readFully(segment);
+                segments.put(key, segment);
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Gets the name of this file in its storage.
+     * @return the name of this file
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the keys of all segments in this file.
+     * @return the keys of the segments, in the order they are written
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Checks whether this file has a segment with the given key.
+     * @param key the key of the segment
+     * @return true if the segment exists, else false
+     */
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Reads the segment with the given key.
+     * @param key the key of the segment
+     * @return the bytes of the segment, or null if there is no such segment
+     * @throws IOException if unable to read
+     */
+    public byte[] read(String key) throws IOException {
+        long[] position = index.get(key);
+        if (position == null) return null;
+        return file.read(position[0], (int) position[1]);
+    }
+
+    // helper to give a new file a name after every file written before it
+    private static synchronized String nextName(String prefix) {
+        lastStamp = Math.max(lastStamp + 1, System.currentTimeMillis());
+        return String.format("%s%013d.seg", prefix, lastStamp);
+    }
+
+    /**
+     * A writer of a new segment file. Segments are added one by one, the index is written when it is finished.
+     */
+    public static class Writer implements Closeable {
+
+        private final Storage storage;
+        private final String name;
+        private final AppendFile file;
+        private final Map<String, long[]> index = new LinkedHashMap<>();
+        private boolean finished;
+
+        /**
+         * Creates a new segment file in the given storage, with a name which starts with the given prefix.
+         * @param storage the storage which keeps the file
+         * @param prefix the start of the name of the file
+         * @throws IOException if unable to create the file
+         */
+        public Writer(Storage storage, String prefix) throws IOException {
+            this.storage = storage;
+            this.name = nextName(prefix);
+            this.file = storage.openFile(name);
+        }
+
+        /**
+         * Adds a segment with the given key.
+         * @param key the key of the segment
+         * @param segment the bytes of the segment
+         * @throws IOException if unable to write
+         */
+        public void add(String key, byte[] segment) throws IOException {
+            index.put(key, new long[]{file.append(segment), segment.length});
+        }
+
+        /**
+         * Writes the index and forces the file onto the disk (if there is one).
+         * @return the written segment file, ready to read
+         * @throws IOException if unable to write
+         */
+        public SegmentFile finish() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(index.size());
+            for (Map.Entry<String, long[]> segment : index.entrySet()) {
+                output.writeUTF(segment.getKey());
+                output.writeLong(segment.getValue()[0]);
+                output.writeInt((int) segment.getValue()[1]);
+            }
+            output.close();
+            long start = file.append(bytes.toByteArray());
+            file.append(ByteBuffer.allocate(TRAILER).putLong(start).putInt(bytes.size()).array());
+            file.force();
+            finished = true;
+            return new SegmentFile(name, file, index);
+        }
+
+        /**
+         * Closes the writer, the file is deleted unless finish was called.
+         */
+        @Override
+        public void close() {
+            if (!finished) storage.delete(name);
+        }
+    }
+}
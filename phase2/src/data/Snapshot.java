@@ -0,0 +1,58 @@
+package data;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of a lower controller (use case) class together with the first generation of its journal which is not
+ * written in it. Reading the data replays the journal from that generation on, so a journal which is only partly
+ * removed after a checkpoint (for example by a crash) is never replayed twice.
+ * A ser file written before the journals had generations holds the manager alone, it is read as generation 0.
+ * @param <T> the class of the snapshot
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class Snapshot<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long generation;
+    private final T data;
+
+    /**
+     * Creates a snapshot of the given data.
+     * @param generation the first generation of the journal which is not written in the data
+     * @param data the manager to save
+     */
+    public Snapshot(long generation, T data) {
+        this.generation = generation;
+        this.data = data;
+    }
+
+    /**
+     * Wraps what was loaded from a ser file as a snapshot, a ser file of the manager alone is generation 0.
+     * @param loaded the object loaded from the storage, or null if there is no ser file
+     * @param <T> the class of the snapshot
+     * @return the snapshot, or null if nothing was loaded
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Snapshot<T> of(Object loaded) {
+        if (loaded == null || loaded instanceof Snapshot) return (Snapshot<T>) loaded;
+        return new Snapshot<>(0, (T) loaded);
+    }
+
+    /**
+     * Gets the first generation of the journal which is not written in this snapshot.
+     * @return the generation to replay the journal from
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the manager kept in this snapshot.
+     * @return the manager
+     */
+    public T getData() {
+        return data;
+    }
+}
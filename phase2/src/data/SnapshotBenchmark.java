@@ -0,0 +1,126 @@
+package data;
+
+import account.AccountManager;
+import event.EventManager;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * A benchmark of the size of a snapshot and of the time to write and read it, in the compact form written by
+ * writeExternal and in Java's default serialization of the same fields the managers saved before they had their own
+ * form. The default form is rebuilt by reading those fields of the managers, so the entities are the same in both.
+ * Run it with the number of accounts and the number of talks, 50000 and 10000 by default. Every account signs up for
+ * five random talks and adds three random friends, and there are 50 rooms and 200 speakers.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SnapshotBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 20;
+
+    /**
+     * Runs the benchmark and prints the size and the average time of each form.
+     * @param args the number of accounts and the number of talks, optional
+     * @throws Exception if a snapshot can not be written or read
+     */
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        Random random = new Random(1);
+        AccountManager accounts = new AccountManager();
+        EventManager talks = new EventManager();
+        long base = Timestamp.valueOf("2030-01-01 09:00:00").getTime();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            ids.add(talks.createEvent("Talk", "talk" + i, new Timestamp(base + 3600_000L * i),
+                    new Timestamp(base + 3600_000L * i + 1800_000L), "room" + (i % 50), "description of talk " + i,
+                    100, Collections.singletonList("speaker" + (i % 200))));
+        }
+        for (int i = 0; i < users; i++) {
+            String user = "user" + i;
+            accounts.addAccount(i < 200 ? "Speaker" : "Attendee", user, "Pass" + i + "Aa");
+            for (int k = 0; k < 5; k++) {
+                int talk = random.nextInt(events);
+                accounts.signUpEvent(new Timestamp(base + 3600_000L * talk),
+                        new Timestamp(base + 3600_000L * talk + 1800_000L), ids.get(talk), user);
+                talks.addAttendee(user, ids.get(talk));
+            }
+            for (int k = 0; k < 3; k++) {
+                accounts.addFriend(user, "user" + random.nextInt(users));
+            }
+        }
+        System.out.println(users + " accounts, " + events + " talks, average of " + RUNS + " runs");
+        compare("AccountManager", accounts, new Object[]{getField(accounts, "allAccounts")});
+        compare("EventManager", talks, getDefaultEventFields(talks));
+    }
+
+    // helper to measure both forms of one manager and print them
+    private static void compare(String name, Object manager, Object defaultFields) throws Exception {
+        System.out.println(name);
+        measure("  default", defaultFields);
+        measure("  compact", manager);
+    }
+
+    // helper to measure one form, after some rounds to warm up, with a collection before each timing so the garbage of
+    // the rounds before is not collected while timing
+    private static void measure(String form, Object data) throws Exception {
+        byte[] bytes = write(data);
+        for (int i = 0; i < WARMUP; i++) {
+            read(write(data));
+        }
+        System.gc();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            write(data);
+        }
+        long written = System.nanoTime();
+        System.gc();
+        long reading = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            read(bytes);
+        }
+        long read = System.nanoTime();
+        System.out.printf("%s: %,d bytes, write %.1f ms, read %.1f ms%n", form, bytes.length,
+                (written - start) / 1e6 / RUNS, (read - reading) / 1e6 / RUNS);
+    }
+
+    // helper to write an object the way the storages do
+    private static byte[] write(Object data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(bytes))) {
+            output.writeObject(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    // helper to read an object written by write
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes));
+        try (ObjectInputStream input = new ObjectInputStream(in)) {
+            return input.readObject();
+        }
+    }
+
+    // helper to get the fields the event manager saved before, its schedule was a map of Timestamp pairs
+    private static Object[] getDefaultEventFields(EventManager events) throws ReflectiveOperationException {
+        Map<String, Timestamp[]> schedule = new HashMap<>();
+        Map<?, ?> intervals = (Map<?, ?>) getField(events, "eventSchedule");
+        for (Map.Entry<?, ?> entry : intervals.entrySet()) {
+            TimeInterval time = (TimeInterval) entry.getValue();
+            schedule.put((String) entry.getKey(), new Timestamp[]{time.getStartTime(), time.getEndTime()});
+        }
+        return new Object[]{getField(events, "eventList"), schedule, getField(events, "numTalk"),
+                getField(events, "numParty"), getField(events, "numDiscuss")};
+    }
+
+    // helper to read a private field of a manager
+    private static Object getField(Object manager, String name) throws ReflectiveOperationException {
+        Field field = manager.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(manager);
+    }
+}
@@ -0,0 +1,313 @@
+package data;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A helper class which reads the compact binary form of the managers written by SnapshotWriter.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SnapshotReader {
+    private final DataInput input;
+    private final List<String> names = new ArrayList<>();
+    private final byte[] buffer;
+    private int position;
+    private NameTable table;
+    private int refWidth;
+    private final List<TimeInterval> intervals = new ArrayList<>();
+    private long lastIntervalStart;
+
+    /**
+     * Creates a reader which reads from the given input.
+     * @param input the input stream of the ser file
+     */
+    public SnapshotReader(DataInput input) {
+        this.input = input;
+        this.buffer = null;
+    }
+
+    /**
+     * Creates a reader which reads from the bytes of a block written by SnapshotWriter.writeBlock.
+     * @param bytes the bytes of the block, without its length
+     */
+    public SnapshotReader(byte[] bytes) {
+        this.input = null;
+        this.buffer = bytes;
+    }
+
+    /**
+     * Reads a block written by SnapshotWriter.writeBlock into memory.
+     * @param in the input of the ser file
+     * @return a reader of the block
+     * @throws IOException if unable to read
+     */
+    public static SnapshotReader readBlock(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) throw new StreamCorruptedException("block has a negative length");
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return new SnapshotReader(bytes);
+    }
+
+    // helper to read one byte
+    private byte get() throws IOException {
+        if (buffer == null) return input.readByte();
+        if (position == buffer.length) throw new EOFException();
+        return buffer[position++];
+    }
+
+    /**
+     * Reads a non negative int written by SnapshotWriter.writeCount.
+     * @return the int read
+     * @throws IOException if unable to read
+     */
+    public int readCount() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new StreamCorruptedException("count is too long");
+    }
+
+    /**
+     * Reads a non negative long written by SnapshotWriter.writePosition.
+     * @return the long read
+     * @throws IOException if unable to read
+     */
+    public long readPosition() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            byte b = get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new StreamCorruptedException("position is too long");
+    }
+
+    /**
+     * Reads a boolean.
+     * @return the boolean read
+     * @throws IOException if unable to read
+     */
+    public boolean readBoolean() throws IOException {
+        return get() != 0;
+    }
+
+    /**
+     * Reads a time written by SnapshotWriter.writeTime.
+     * @return the time read, or null if there was no time
+     * @throws IOException if unable to read
+     */
+    public Timestamp readTime() throws IOException {
+        long value = readTimeValue();
+        return value == 0 ? null : new Timestamp(decodeMillis(value));
+    }
+
+    /**
+     * Reads a period of time written by SnapshotWriter.writeInterval.
+     * @return the period read
+     * @throws IOException if unable to read or a time is missing
+     */
+    public TimeInterval readInterval() throws IOException {
+        long start = readTimeValue();
+        long end = readTimeValue();
+        if (start == 0 || end == 0) throw new StreamCorruptedException("period has no time");
+        return new TimeInterval(decodeMillis(start), decodeMillis(end));
+    }
+
+    /**
+     * Reads a period of time written by SnapshotWriter.writeSpan.
+     * @param previousStart the start of the period read before, or 0 for the first one
+     * @return the period read
+     * @throws IOException if unable to read
+     */
+    public TimeInterval readSpan(long previousStart) throws IOException {
+        long start = previousStart + readSigned();
+        return new TimeInterval(start, start + readSigned());
+    }
+
+    /**
+     * Reads a period of time written by SnapshotWriter.writeSharedInterval. A period read again is the same object.
+     * @return the period read
+     * @throws IOException if unable to read
+     */
+    public TimeInterval readSharedInterval() throws IOException {
+        int index = readCount();
+        if (index == 0) {
+            TimeInterval interval = readSpan(lastIntervalStart);
+            lastIntervalStart = interval.getStart();
+            intervals.add(interval);
+            return interval;
+        }
+        if (index - 1 >= intervals.size()) throw new StreamCorruptedException("unknown period " + index);
+        return intervals.get(index - 1);
+    }
+
+    // helper to read an encoded time from a variable length long
+    private long readTimeValue() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new StreamCorruptedException("time is too long");
+    }
+
+    // helper to turn an encoded time other than 0 back into epoch milliseconds
+    private long decodeMillis(long value) {
+        value -= 1;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // helper to read a long written by SnapshotWriter.writeSigned
+    private long readSigned() throws IOException {
+        long value = readTimeValue();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a text written by SnapshotWriter.writeText.
+     * @return the text read, can be null
+     * @throws IOException if unable to read
+     */
+    public String readText() throws IOException {
+        int length = readCount();
+        if (length == 0) return null;
+        if (buffer != null) {
+            if (length - 1 > buffer.length - position) throw new EOFException();
+            String text = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return text;
+        }
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a text written by SnapshotWriter.writeText with the text written before it.
+     * @param previous the text read before, can be null
+     * @return the text read, can be null
+     * @throws IOException if unable to read
+     */
+    public String readText(String previous) throws IOException {
+        int same = readCount();
+        if (same == 0) return null;
+        String rest = readText();
+        if (same == 1) return rest;
+        if (previous == null || same - 1 > previous.length()) throw new StreamCorruptedException("text has no start");
+        return previous.substring(0, same - 1).concat(rest);
+    }
+
+    /**
+     * Reads a name written by SnapshotWriter.writeName.
+     * @return the name read, can be null
+     * @throws IOException if unable to read
+     */
+    public String readName() throws IOException {
+        int index = readCount();
+        if (index == 0) return null;
+        if (index == 1) {
+            String name = readText();
+            names.add(name);
+            return name;
+        }
+        if (index - 2 >= names.size()) throw new StreamCorruptedException("unknown name " + index);
+        return names.get(index - 2);
+    }
+
+    /**
+     * Reads a list of names written by SnapshotWriter.writeNames.
+     * @return the list of names read, can be null
+     * @throws IOException if unable to read
+     */
+    public List<String> readNames() throws IOException {
+        int size = readCount();
+        if (size == 0) return null;
+        List<String> list = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            list.add(readName());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a table of names written by SnapshotWriter.writeTable.
+     * @return the table read
+     * @throws IOException if unable to read
+     */
+    public NameTable readTable() throws IOException {
+        String[] names = new String[readCount()];
+        String previous = null;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readText(previous);
+            previous = names[i];
+        }
+        table = new NameTable(names);
+        refWidth = SnapshotWriter.widthOf(names.length);
+        return table;
+    }
+
+    /**
+     * Reads the position of a name written by SnapshotWriter.writeRef.
+     * @return the position of the name in the table, or -1 for null
+     * @throws IOException if unable to read
+     */
+    public int readRefPosition() throws IOException {
+        int index = 0;
+        for (int i = 0; i < refWidth; i++) {
+            index |= (get() & 0xFF) << (8 * i);
+        }
+        if (index > table.size()) throw new StreamCorruptedException("unknown name " + index);
+        return index - 1;
+    }
+
+    /**
+     * Reads a name written by SnapshotWriter.writeRef. The same name is always the same String.
+     * @return the name read, can be null
+     * @throws IOException if unable to read
+     */
+    public String readRef() throws IOException {
+        return table.get(readRefPosition());
+    }
+
+    /**
+     * Reads the positions of a list of names written by SnapshotWriter.writeRefs.
+     * @return the positions of the names in the table, -1 for null, or null if there was no list
+     * @throws IOException if unable to read
+     */
+    public int[] readRefPositions() throws IOException {
+        int size = readCount();
+        if (size == 0) return null;
+        int[] positions = new int[size - 1];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = readRefPosition();
+        }
+        return positions;
+    }
+
+    /**
+     * Reads a list of names written by SnapshotWriter.writeRefs.
+     * @return the list of names read, can be null
+     * @throws IOException if unable to read
+     */
+    public List<String> readRefs() throws IOException {
+        int size = readCount();
+        if (size == 0) return null;
+        List<String> list = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            list.add(readRef());
+        }
+        return list;
+    }
+}
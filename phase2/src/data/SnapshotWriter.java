@@ -0,0 +1,380 @@
+package data;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A helper class which writes the compact binary form of the managers into a ser file.
+ * Counts are written as variable length ints, times as epoch milliseconds and names (usernames, event ids, room
+ * names) through a string table, so a name repeated all over the data is only written out once.
+ * A writer made without an output keeps what it writes in memory and writes it all as one block at the end, which is
+ * much faster than writing byte by byte into the ser file. The names in a block are written through a NameTable
+ * instead: the table is written first, each name with only the end that differs from the name before, and a name is
+ * then written as its position in the table, in the same small number of bytes wherever it is used.
+ * It should be used for one manager at a time together with SnapshotReader.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SnapshotWriter {
+    private final DataOutput output;
+    private final Map<String, Integer> names = new HashMap<>();
+    private byte[] buffer;
+    private int size;
+    // the table of names written by writeTable, and the number of bytes of a position in it
+    private NameTable table;
+    private int refWidth;
+    private final Map<TimeInterval, Integer> intervals = new HashMap<>();
+    private long lastIntervalStart;
+
+    /**
+     * Creates a writer which writes into the given output.
+     * @param output the output stream of the ser file
+     */
+    public SnapshotWriter(DataOutput output) {
+        this.output = output;
+    }
+
+    /**
+     * Creates a writer which keeps what it writes in memory, to be written as one block by writeBlock.
+     */
+    public SnapshotWriter() {
+        this(8192);
+    }
+
+    /**
+     * Creates a writer which keeps what it writes in memory, with room for about the given number of bytes so it
+     * does not have to grow while writing.
+     * @param expectedSize the number of bytes expected to be written
+     */
+    public SnapshotWriter(int expectedSize) {
+        this.output = null;
+        this.buffer = new byte[Math.max(expectedSize, 64)];
+    }
+
+    /**
+     * Writes everything written into this writer as one block, its length followed by its bytes. It is read back by
+     * SnapshotReader.readBlock.
+     * @param out the output of the ser file
+     * @throws IOException if unable to write
+     * @throws IllegalStateException if this writer writes straight into an output
+     */
+    public void writeBlock(DataOutput out) throws IOException {
+        if (output != null) throw new IllegalStateException("the writer is not kept in memory");
+        out.writeInt(size);
+        out.write(buffer, 0, size);
+    }
+
+    // helper to write one byte
+    private void put(int value) throws IOException {
+        if (output != null) {
+            output.writeByte(value);
+            return;
+        }
+        if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+        buffer[size++] = (byte) value;
+    }
+
+    // helper to write a number of bytes
+    private void put(byte[] bytes) throws IOException {
+        if (output != null) {
+            output.write(bytes);
+            return;
+        }
+        if (size + bytes.length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(size * 2, size + bytes.length));
+        }
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes a non negative int in 1 to 5 bytes, small numbers take less bytes.
+     * @param value the int to write
+     * @throws IOException if unable to write
+     */
+    public void writeCount(int value) throws IOException {
+        if (output == null && size + 5 <= buffer.length) {
+            // the buffer has room for the longest count, so the bytes are stored without checking for room each time
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+            return;
+        }
+        while ((value & ~0x7F) != 0) {
+            put((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        put(value);
+    }
+
+    /**
+     * Writes a non negative long, such as a position in a file, in 1 to 9 bytes.
+     * @param value the long to write
+     * @throws IOException if unable to write
+     */
+    public void writePosition(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            put((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((int) value);
+    }
+
+    /**
+     * Writes a boolean in one byte.
+     * @param value the boolean to write
+     * @throws IOException if unable to write
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        put(value ? 1 : 0);
+    }
+
+    /**
+     * Writes a time as its epoch milliseconds in a variable length long, 6 bytes for the times of this century.
+     * @param time the time to write, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeTime(Timestamp time) throws IOException {
+        if (time == null) writePosition(0);
+        else writeMillis(time.getTime());
+    }
+
+    /**
+     * Writes a period of time as its start time and end time, each written as by writeTime.
+     * @param interval the period to write
+     * @throws IOException if unable to write
+     */
+    public void writeInterval(TimeInterval interval) throws IOException {
+        writeMillis(interval.getStart());
+        writeMillis(interval.getEnd());
+    }
+
+    /**
+     * Writes a period of time as the time from the given start to its start, then its length. Periods written in
+     * order of their start take only a few bytes each.
+     * @param interval the period to write
+     * @param previousStart the start of the period written before, or 0 for the first one
+     * @throws IOException if unable to write
+     */
+    public void writeSpan(TimeInterval interval, long previousStart) throws IOException {
+        writeSigned(interval.getStart() - previousStart);
+        writeSigned(interval.getEnd() - interval.getStart());
+    }
+
+    /**
+     * Writes a period of time which is likely to repeat, such as the time of an event booked by many users. The first
+     * time a period is written it follows as by writeSpan, after that only its position among the periods written.
+     * @param interval the period to write
+     * @throws IOException if unable to write
+     */
+    public void writeSharedInterval(TimeInterval interval) throws IOException {
+        Integer index = intervals.get(interval);
+        if (index != null) {
+            writeCount(index + 1);
+        } else {
+            intervals.put(interval, intervals.size());
+            writeCount(0);
+            writeSpan(interval, lastIntervalStart);
+            lastIntervalStart = interval.getStart();
+        }
+    }
+
+    // helper to write a time in epoch milliseconds
+    private void writeMillis(long millis) throws IOException {
+        // 0 is kept for no time, other times are zigzag encoded so times before 1970 stay short as well
+        writePosition(((millis << 1) ^ (millis >> 63)) + 1);
+    }
+
+    // helper to write a long which may be negative, zigzag encoded so small numbers of either sign stay short
+    private void writeSigned(long value) throws IOException {
+        writePosition((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a text that is unlikely to repeat, such as a description or content of a message.
+     * @param text the text to write, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeText(String text) throws IOException {
+        if (text == null) {
+            writeCount(0);
+            return;
+        }
+        writeText(text, 0);
+    }
+
+    // helper to write the end of a text from the given index as by writeText
+    private void writeText(String text, int from) throws IOException {
+        int length = text.length() - from;
+        if (output == null && isAscii(text, from)) {
+            // ascii is the same in UTF-8, so it is copied in without making an array of bytes first
+            writeCount(length + 1);
+            if (size + length > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(size * 2, size + length));
+            for (int i = from; i < text.length(); i++) {
+                buffer[size++] = (byte) text.charAt(i);
+            }
+            return;
+        }
+        byte[] bytes = text.substring(from).getBytes(StandardCharsets.UTF_8);
+        writeCount(bytes.length + 1);
+        put(bytes);
+    }
+
+    // helper to check if the end of a text from the given index is all ascii
+    private static boolean isAscii(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a text as the number of its first characters which are the same as in the given text, then the rest
+     * of it. Texts which look alike, such as the names of events written one after another, take only a few bytes.
+     * @param text the text to write, can be null
+     * @param previous the text written before, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeText(String text, String previous) throws IOException {
+        if (text == null) {
+            writeCount(0);
+            return;
+        }
+        int same = 0;
+        if (previous != null) {
+            int most = Math.min(text.length(), previous.length());
+            while (same < most && text.charAt(same) == previous.charAt(same)) same++;
+            // a character made of two chars is never split
+            if (same > 0 && Character.isHighSurrogate(text.charAt(same - 1))) same--;
+        }
+        writeCount(same + 1);
+        writeText(text, same);
+    }
+
+    /**
+     * Writes a name through the string table. The first time a name is written its text follows, after that only
+     * its position in the table is written.
+     * @param name the name to write, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeName(String name) throws IOException {
+        if (name == null) {
+            writeCount(0);
+            return;
+        }
+        Integer index = names.get(name);
+        if (index != null) {
+            writeCount(index + 2);
+        } else {
+            names.put(name, names.size());
+            writeCount(1);
+            writeText(name);
+        }
+    }
+
+    /**
+     * Writes a list or set of names with its size first, it is read back as a list.
+     * @param list the names to write in order, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeNames(Collection<String> list) throws IOException {
+        if (list == null) {
+            writeCount(0);
+            return;
+        }
+        writeCount(list.size() + 1);
+        for (String name : list) {
+            writeName(name);
+        }
+    }
+
+    /**
+     * Writes a table of names, each name written as by writeText with the name before it. Every name written by
+     * writeRef afterwards must be in the table, and is written as its position in the table, in as many bytes as the
+     * size of the table needs.
+     * @param names the table
+     * @throws IOException if unable to write
+     */
+    public void writeTable(NameTable names) throws IOException {
+        writeCount(names.size());
+        String previous = null;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            writeText(name, previous);
+            previous = name;
+        }
+        table = names;
+        refWidth = widthOf(names.size());
+    }
+
+    // helper to get the number of bytes a position in a table of the given size takes, with 0 kept for null
+    static int widthOf(int tableSize) {
+        int width = 1;
+        while (width < 4 && tableSize >= 1 << (8 * width)) width++;
+        return width;
+    }
+
+    /**
+     * Writes a name of the table written by writeTable.
+     * @param name the name to write, can be null
+     * @throws IOException if unable to write
+     * @throws IllegalArgumentException if the name is not in the table
+     */
+    public void writeRef(String name) throws IOException {
+        int position = table.indexOf(name);
+        if (position == -1 && name != null) throw new IllegalArgumentException("name not in the table: " + name);
+        writeRef(position);
+    }
+
+    /**
+     * Writes a name of the table written by writeTable by its position in the table.
+     * @param position the position of the name, or -1 for null
+     * @throws IOException if unable to write
+     */
+    public void writeRef(int position) throws IOException {
+        if (position < -1 || position >= table.size()) throw new IllegalArgumentException("no name at " + position);
+        int value = position + 1;
+        if (size + refWidth > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(size * 2, size + refWidth));
+        for (int i = 0; i < refWidth; i++) {
+            buffer[size++] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Writes a list of names of the table written by writeTable by their positions in the table, with its size first.
+     * It is read back as by SnapshotReader.readRefs.
+     * @param positions the positions of the names in order, -1 for null
+     * @throws IOException if unable to write
+     */
+    public void writeRefs(int[] positions) throws IOException {
+        writeCount(positions.length + 1);
+        for (int position : positions) {
+            writeRef(position);
+        }
+    }
+
+    /**
+     * Writes a list or set of names of the table written by writeTable, with its size first.
+     * @param list the names to write in order, can be null
+     * @throws IOException if unable to write
+     */
+    public void writeRefs(Collection<String> list) throws IOException {
+        if (list == null) {
+            writeCount(0);
+            return;
+        }
+        writeCount(list.size() + 1);
+        for (String name : list) {
+            writeRef(name);
+        }
+    }
+}
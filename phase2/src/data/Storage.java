@@ -0,0 +1,107 @@
+package data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An interface of where the data of the conference system is kept.
+ * A storage keeps three kinds of data under a name: a snapshot of a lower controller (use case) class, which is saved
+ * and loaded as a whole, a log of records, which only grows at its end until its start is cut off, and a file of
+ * records read back by position, which a snapshot may refer to (for example the mailboxes and bodies of the messages).
+ * Positions in a log are only meaningful to the storage which gave them, they only need to grow as records are
+ * appended.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public interface Storage {
+
+    /**
+     * Checks whether there is a snapshot with the given name.
+     * @param name the name of the snapshot
+     * @return true if the snapshot exists, else false
+     */
+    boolean exists(String name);
+
+    /**
+     * Loads the snapshot with the given name.
+     * @param name the name of the snapshot
+     * @param <T> the class of the snapshot
+     * @return the loaded snapshot, or null if it does not exist or can not be read
+     * @throws ClassNotFoundException if the class of the snapshot is not found
+     */
+    <T> T load(String name) throws ClassNotFoundException;
+
+    /**
+     * Saves a snapshot under the given name in one step, replacing the old one. If saving fails the old snapshot is
+     * kept.
+     * @param name the name of the snapshot
+     * @param data the snapshot to save
+     * @param <T> the class of the snapshot
+     * @return true if saved, else false
+     */
+    <T> boolean save(String name, T data);
+
+    /**
+     * Replaces a snapshot with another one in one step, the other one no longer exists under its own name.
+     * @param from the name of the new snapshot
+     * @param to the name of the snapshot to replace
+     * @return true if replaced, else false
+     */
+    boolean replace(String from, String to);
+
+    /**
+     * Appends records at the end of a log, they are on the disk (if there is one) when this returns.
+     * @param name the name of the log
+     * @param records the records to append, in order
+     * @return true if all records are appended, else false
+     */
+    boolean append(String name, List<byte[]> records);
+
+    /**
+     * Gets the position of the end of a log.
+     * @param name the name of the log
+     * @return the position of the end of the log, 0 if the log is empty
+     */
+    long length(String name);
+
+    /**
+     * Reads the records of a log from its start up to the given position, in order.
+     * @param name the name of the log
+     * @param limit the position to stop at
+     * @param reader the operation which is given every record
+     * @throws IOException if unable to read
+     */
+    void replay(String name, long limit, Consumer<byte[]> reader) throws IOException;
+
+    /**
+     * Cuts off the start of a log up to the given position. The records after it are kept.
+     * @param name the name of the log
+     * @param prefix the position to cut the log at
+     * @return true if cut, else false
+     */
+    boolean truncate(String name, long prefix);
+
+    /**
+     * Opens the file of records with the given name, it is created if it does not exist. Everything which opens the
+     * same name in the same storage gets the same file.
+     * @param name the name of the file
+     * @return the file with the given name
+     * @throws IOException if unable to open the file
+     */
+    AppendFile openFile(String name) throws IOException;
+
+    /**
+     * Gets the names of the files of records which start with the given prefix.
+     * @param prefix the start of the names
+     * @return the names of the files, in order of name
+     */
+    List<String> list(String prefix);
+
+    /**
+     * Deletes the file of records with the given name, it can not be used afterwards.
+     * @param name the name of the file
+     * @return true if deleted or it did not exist, else false
+     */
+    boolean delete(String name);
+}
@@ -0,0 +1,47 @@
+package data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+
+/**
+ * An object input stream which reads a snapshot from a storage. A lower controller (use case) class which keeps some
+ * of its data in files of its own, such as the mailboxes of the messages, gets the storage from it in readExternal, so
+ * it opens those files in the same storage as the snapshot.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class StorageInputStream extends ObjectInputStream {
+
+    private final Storage storage;
+
+    /**
+     * Creates an object input stream of a snapshot kept in the given storage.
+     * @param input the bytes of the snapshot
+     * @param storage the storage the snapshot is read from
+     * @throws IOException if unable to read the header of the stream
+     */
+    public StorageInputStream(InputStream input, Storage storage) throws IOException {
+        super(input);
+        this.storage = storage;
+    }
+
+    /**
+     * Gets the storage the snapshot is read from.
+     * @return the storage of the snapshot
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Gets the storage the given input reads a snapshot from, the files in the data folder if it is not read from a
+     * storage.
+     * @param input the input given to readExternal
+     * @return the storage of the snapshot
+     */
+    public static Storage storageOf(ObjectInput input) {
+        return input instanceof StorageInputStream ? ((StorageInputStream) input).storage : FileStorage.getDefault();
+    }
+}
@@ -0,0 +1,48 @@
+package data;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * An object output stream which writes a snapshot into a storage. A lower controller (use case) class which keeps some
+ * of its data in files of its own, such as the mailboxes of the messages, gets the storage from it in writeExternal, so
+ * it writes those files into the same storage as the snapshot.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class StorageOutputStream extends ObjectOutputStream {
+
+    private final Storage storage;
+
+    /**
+     * Creates an object output stream of a snapshot saved in the given storage.
+     * @param output where the bytes of the snapshot are written
+     * @param storage the storage the snapshot is saved in
+     * @throws IOException if unable to write the header of the stream
+     */
+    public StorageOutputStream(OutputStream output, Storage storage) throws IOException {
+        super(output);
+        this.storage = storage;
+    }
+
+    /**
+     * Gets the storage the snapshot is saved in.
+     * @return the storage of the snapshot
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Gets the storage the given output writes a snapshot into, the files in the data folder if it is not written
+     * into a storage.
+     * @param output the output given to writeExternal
+     * @return the storage of the snapshot
+     */
+    public static Storage storageOf(ObjectOutput output) {
+        return output instanceof StorageOutputStream ? ((StorageOutputStream) output).storage
+                : FileStorage.getDefault();
+    }
+}
@@ -0,0 +1,112 @@
+package data;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * An immutable period of time from a start time to an end time, both kept as epoch milliseconds.
+ * It is what every schedule of the conference system keeps for each event: the schedule of events, the schedule of
+ * each room and the signed and hosted events of each account. Timestamps are only made from it when a time is shown to
+ * the user.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public final class TimeInterval implements Serializable, Comparable<TimeInterval> {
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+    private final long end;
+
+    /**
+     * Creates a period of time.
+     * @param start the start time in epoch milliseconds
+     * @param end the end time in epoch milliseconds
+     */
+    public TimeInterval(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a period of time from two timestamps.
+     * @param startTime the start time
+     * @param endTime the end time
+     * @return the period from the start time to the end time
+     */
+    public static TimeInterval of(Timestamp startTime, Timestamp endTime) {
+        return new TimeInterval(startTime.getTime(), endTime.getTime());
+    }
+
+    /**
+     * Gets the start time.
+     * @return the start time in epoch milliseconds
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end time.
+     * @return the end time in epoch milliseconds
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the start time as a timestamp, to be shown to the user.
+     * @return the start time
+     */
+    public Timestamp getStartTime() {
+        return new Timestamp(start);
+    }
+
+    /**
+     * Gets the end time as a timestamp, to be shown to the user.
+     * @return the end time
+     */
+    public Timestamp getEndTime() {
+        return new Timestamp(end);
+    }
+
+    /**
+     * Checks if this period and the given one share any time, where a period ending at the moment the other starts
+     * does not share it, so back-to-back periods do not overlap.
+     * @param other the other period
+     * @return true if the periods share any time, else false
+     */
+    public boolean overlaps(TimeInterval other) {
+        return start < other.end && other.start < end;
+    }
+
+    /**
+     * Compares by start time and then end time.
+     * @param other the other period
+     * @return a negative number, zero or a positive number as this period is before, the same as or after the other
+     */
+    @Override
+    public int compareTo(TimeInterval other) {
+        int order = Long.compare(start, other.start);
+        return order != 0 ? order : Long.compare(end, other.end);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TimeInterval)) return false;
+        return start == ((TimeInterval) other).start && end == ((TimeInterval) other).end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    /**
+     * Represents the period as its two times.
+     * @return the start time and the end time
+     */
+    @Override
+    public String toString() {
+        return getStartTime() + " to " + getEndTime();
+    }
+}
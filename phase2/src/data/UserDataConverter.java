@@ -1,54 +1,37 @@
 package data;
 
 import account.AccountManager;
-import authentication.ConferenceRegisterSystem;
-import conferencemain.MainPresenter;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.FileReader;
+import authentication.BulkAccountImporter;
 
 
 /**
  * This is a class to convert txt file to account manager,that txt file contains the default account type, username
- * and password. And reform the given information as a ser file.
+ * and password. And reform the given information as a ser file. CSV files with one "type,username,password" row for
+ * each account are converted as well.
  * @author Group0065
  * @version 1.0.0
  */
 public class UserDataConverter {
 
-    private MainPresenter wp = new MainPresenter();
-
     /**
-     * Creates an new account manager class and add the user from information from the txt file at given path.
-     * @param path the path of txt file
-     * @return an account manager class with all users with information in txt file stored in it
+     * Creates an new account manager class and add the user from information from the txt or CSV file at given path.
+     * The accounts are added in batches by the bulk importer, which prints one summary instead of a line per account.
+     * @param path the path of txt or CSV file
+     * @return an account manager class with all users with information in the file stored in it
      */
     private AccountManager readFromFile(String path) {
-        try {
-            FileReader fr = new FileReader(path);
-            BufferedReader br = new BufferedReader(fr);
-            String currLine = br.readLine();
-            String accountType, username, password;
-            AccountManager am = new AccountManager();
-            ConferenceRegisterSystem crs = new ConferenceRegisterSystem();
-            while (currLine != null) {
-                if (!currLine.startsWith("#")) {
-                    accountType = currLine;
-                    username = br.readLine();
-                    password = br.readLine();
-                    br.readLine();
-                    crs.createAccountWithData(accountType, username, password, am);
-                }
-                currLine = br.readLine();
-            }
-            fr.close();
-            br.close();
-            return am;
-        } catch (IOException e) {
-            wp.printErrorMessage("fail to read from " + path);
-            return new AccountManager();
-        }
+        AccountManager am = new AccountManager();
+        new BulkAccountImporter().importAccounts(path, am);
+        return am;
+    }
+
+    /**
+     * Converts txt or CSV data into accountManager.
+     * @param prePath the path of txt or CSV file
+     * @return an account manager with all users in the file
+     */
+    public AccountManager convertData(String prePath) {
+        return readFromFile(prePath);
     }
 
     /**
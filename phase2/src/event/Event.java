@@ -1,13 +1,25 @@
 package event;
 
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.util.ArrayList;
 import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * An abstract entity class of events, stores name, ID, start time, end time, location, description, capacity,
- * and a list of attendees of the event.
+ * the attendees of the event in the order they signed up, and the users waiting for a place when the event is full, in
+ * the order they started waiting.
  * Abstract because there are different kind of events.
  * Methods in this class are some getter and setter for attributes in this class.
  * @author Group0065
@@ -23,6 +35,13 @@ public abstract class Event implements Serializable {
     private String description;
     private int capacity;
     private List<String> attendee;
+    private Set<String> waitlist;
+    // the attendees in a set to look them up, made from the list when it is first needed and not saved
+    private transient Set<String> attendeeSet;
+    // the positions of the attendees in the table of names they were last written with or read from, or null if the
+    // attendees changed since, not saved
+    private transient int[] attendeePositions;
+    private transient NameTable positionsTable;
 
     /**
      * constructs a new event
@@ -44,6 +63,7 @@ public abstract class Event implements Serializable {
         this.description = description;
         this.capacity = capacity;
         this.attendee = new ArrayList<>();
+        this.waitlist = new LinkedHashSet<>();
     }
 
     /**
@@ -102,8 +122,8 @@ public abstract class Event implements Serializable {
      * @param username the username of user we want to check
      * @return true if given username in attendee list, else false
      */
-    protected boolean isInEvent(String username) {
-        return attendee.contains(username);
+    protected synchronized boolean isInEvent(String username) {
+        return attendeeSet().contains(username);
     }
 
     /**
@@ -123,12 +143,13 @@ public abstract class Event implements Serializable {
     }
 
     /**
-     * Adds a new attendee to the attendee list of this event.
+     * Adds a new attendee to the attendee list of this event, if the event is not full.
      * @param attendeeName the username of user we want to add into attendee list
      * @return true if added successfully, else false
      */
-    protected boolean addAttendee(String attendeeName) {
-        if (attendee.size() >= 2) return false;
+    protected synchronized boolean addAttendee(String attendeeName) {
+        if (!canSignup() || !attendeeSet().add(attendeeName)) return false;
+        attendeePositions = null;
         return attendee.add(attendeeName);
     }
 
@@ -137,7 +158,9 @@ public abstract class Event implements Serializable {
      * @param attendeeName the username of user we want to remove from attendee list
      * @return true if removed successfully, else false
      */
-    protected boolean removeAttendee(String attendeeName) {
+    protected synchronized boolean removeAttendee(String attendeeName) {
+        if (!attendeeSet().remove(attendeeName)) return false;
+        attendeePositions = null;
         return attendee.remove(attendeeName);
     }
 
@@ -171,16 +194,191 @@ public abstract class Event implements Serializable {
     protected abstract List<String> getHosts();
 
     /**
-     * Gets the attendees of this event in a list.
-     * This is an abstract method which will show attendees of the event.
-     * @return the list of attendees for this event
+     * Gets the attendees of this event in a list, in the order they signed up.
+     * @return a copy of the list of attendees for this event
+     */
+    protected synchronized List<String> getAttendees(){return new ArrayList<>(attendee);}
+
+    /**
+     * Gets the number of attendees of this event.
+     * @return the number of attendees
+     */
+    protected synchronized int getNumberOfAttendees(){return attendee.size();}
+
+    /**
+     * Adds a user to the end of the waitlist of this event.
+     * @param username the username of user we want to add into the waitlist
+     * @return true if added, false if the user is already waiting
+     */
+    protected boolean addToWaitlist(String username) {
+        return waitlist.add(username);
+    }
+
+    /**
+     * Removes a user from the waitlist of this event.
+     * @param username the username of user we want to remove from the waitlist
+     * @return true if removed, false if the user is not waiting
      */
-    protected List<String> getAttendees(){return attendee;}
+    protected boolean removeFromWaitlist(String username) {
+        return waitlist.remove(username);
+    }
+
+    /**
+     * Takes the user who has waited the longest off the waitlist of this event.
+     * @return the username of the user, or null if nobody is waiting
+     */
+    protected String pollWaitlist() {
+        Iterator<String> first = waitlist.iterator();
+        if (!first.hasNext()) return null;
+        String username = first.next();
+        first.remove();
+        return username;
+    }
+
+    /**
+     * Checks if a user is on the waitlist of this event.
+     * @param username the username of user we want to check
+     * @return true if the user is waiting, else false
+     */
+    protected boolean isWaiting(String username) {
+        return waitlist.contains(username);
+    }
+
+    /**
+     * Gets the users waiting for a place in this event.
+     * @return a copy of the waitlist, from the user who has waited the longest
+     */
+    protected List<String> getWaitlist() {
+        return new ArrayList<>(waitlist);
+    }
 
     /**
      * Checks of there are still space in the event
      * @return true if and only if the event is not full
      */
-    protected boolean canSignup(){ return capacity > attendee.size(); }
+    protected boolean canSignup(){ return capacity > getNumberOfAttendees(); }
+
+    // helper to get the set of attendees, the lock of this event must be held
+    private Set<String> attendeeSet() {
+        if (attendeeSet == null) attendeeSet = new HashSet<>(attendee);
+        return attendeeSet;
+    }
+
+    /**
+     * Adds the names this event writes through the table of the ser file to the table: its location, its hosts, its
+     * attendees and the users on its waitlist. The positions of the attendees are kept until they change, so the
+     * attendees are only looked up in the table again when they changed since the event was last written or read.
+     * @param names the table of names
+     */
+    protected synchronized void addNamesTo(NameTable names) {
+        names.add(location);
+        List<String> hosts = getHosts();
+        if (hosts != null) {
+            for (String host : hosts) {
+                names.add(host);
+            }
+        }
+        for (String username : waitlist) {
+            names.add(username);
+        }
+        if (attendeePositions != null && positionsTable == names) return;
+        attendeePositions = new int[attendee.size()];
+        for (int i = 0; i < attendeePositions.length; i++) {
+            attendeePositions[i] = names.add(attendee.get(i));
+        }
+        positionsTable = names;
+    }
+
+    /**
+     * Writes this event in the compact binary form of version 3, where the events are written in order of their start
+     * time. The id, name and description are written with those of the event before, and the time from its start.
+     * Every other name is written through the table of the ser file, which must have been given to addNamesTo.
+     * @param writer the writer of the ser file
+     * @param previous the event written before, or null for the first one
+     * @throws IOException if unable to write
+     */
+    protected synchronized void writeTo(SnapshotWriter writer, Event previous) throws IOException {
+        writer.writeText(ID, previous == null ? null : previous.ID);
+        writer.writeText(name, previous == null ? null : previous.name);
+        writer.writeSpan(TimeInterval.of(startTime, endTime), previous == null ? 0 : previous.startTime.getTime());
+        writer.writeRef(location);
+        writer.writeText(description, previous == null ? null : previous.description);
+        writer.writeCount(capacity);
+        writer.writeRefs(getHosts());
+        writer.writeRefs(attendeePositions);
+        writer.writeRefs(waitlist);
+    }
+
+    /**
+     * Reads an event written by writeTo of version 3.
+     * @param reader the reader of the ser file
+     * @param names the table of names read from the ser file
+     * @param previous the event read before, or null for the first one
+     * @return the event read
+     * @throws IOException if unable to read
+     */
+    protected static Event readFrom(SnapshotReader reader, NameTable names, Event previous) throws IOException {
+        String id = reader.readText(previous == null ? null : previous.ID);
+        String name = reader.readText(previous == null ? null : previous.name);
+        TimeInterval time = reader.readSpan(previous == null ? 0 : previous.startTime.getTime());
+        String location = reader.readRef();
+        String description = reader.readText(previous == null ? null : previous.description);
+        int capacity = reader.readCount();
+        Event event = create(id, name, time.getStartTime(), time.getEndTime(), location, description, capacity,
+                reader.readRefs());
+        int[] positions = reader.readRefPositions();
+        if (positions != null) {
+            event.attendee = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                event.attendee.add(names.get(position));
+            }
+            event.attendeePositions = positions;
+            event.positionsTable = names;
+        }
+        List<String> waiting = reader.readRefs();
+        if (waiting != null) event.waitlist = new LinkedHashSet<>(waiting);
+        return event;
+    }
+
+    /**
+     * Reads an event written by the versions of the ser file before 3.
+     * @param reader the reader of the ser file
+     * @param version the version of the ser file, events before version 2 have no waitlist
+     * @return the event read
+     * @throws IOException if unable to read
+     */
+    protected static Event readFrom(SnapshotReader reader, int version) throws IOException {
+        String id = reader.readName();
+        String name = reader.readText();
+        Timestamp startTime = reader.readTime();
+        Timestamp endTime = reader.readTime();
+        String location = reader.readName();
+        String description = reader.readText();
+        int capacity = reader.readCount();
+        Event event = create(id, name, startTime, endTime, location, description, capacity, reader.readNames());
+        List<String> attendees = reader.readNames();
+        if (attendees != null) event.attendee.addAll(attendees);
+        List<String> waiting = version >= 2 ? reader.readNames() : null;
+        if (waiting != null) event.waitlist.addAll(waiting);
+        return event;
+    }
+
+    // helper to create an event read from a ser file, the first letter of the id tells which kind of event it is
+    private static Event create(String id, String name, Timestamp startTime, Timestamp endTime, String location,
+                                String description, int capacity, List<String> hosts) throws IOException {
+        if (id == null || id.isEmpty()) throw new StreamCorruptedException("Event has no id");
+        switch (id.charAt(0)) {
+            case 'T':
+                return new Talk(name, startTime, endTime, location, description, capacity,
+                        hosts == null || hosts.isEmpty() ? null : hosts.get(0), id);
+            case 'P':
+                return new Party(name, startTime, endTime, location, description, capacity, id);
+            case 'D':
+                return new PanelDiscussion(name, startTime, endTime, location, description, capacity,
+                        hosts == null ? new ArrayList<>() : hosts, id);
+            default:
+                throw new StreamCorruptedException("Unknown kind of event " + id);
+        }
+    }
 
 }
@@ -18,6 +18,8 @@ public class EventFactory {
     private int numDiscuss;
     public EventFactory(int numTalk, int numParty, int numDiscuss) {
         this.numTalk = numTalk;
+        this.numParty = numParty;
+        this.numDiscuss = numDiscuss;
     }
 
     /**
@@ -1,63 +1,356 @@
 package event;
 
-import java.io.Serializable;
-import java.sql.Array;
+import data.NameTable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.*;
 import java.sql.Timestamp;
 import java.util.*;
 
 
 /**
  * An use case class of event.
- * Stores all event in a map with event id of event map to the corresponding event. Also a sorted map with
- * time map to a list of toString of events start at that time.
+ * Stores all event in a map with event id of event map to the corresponding event, which every lookup by id goes
+ * through, and the same events split by their type in a map of type to the events of that type. Also a sorted map with
+ * start time map to the ids of the events start at that time, in order, so the events are always sorted by their start
+ * time and then their id, and an interval tree of the times of the events to find the events in a period of time.
+ * The ids of the events are also kept by room and by speaker, with the names in lower case, each sorted the same way,
+ * and in the order of their attend rate from the highest, so the most popular events are found without a sort.
+ * Events read from a ser file are only put in the maps by id and by type, every other index is built in one go, from
+ * the events sorted once, the first time it is used.
+ * Every method which reads or changes the events holds the lock of the manager, so sessions and SignupService may call
+ * it from many threads, but the calls run one at a time. A change made of several calls, such as a signup which
+ * checks the capacity before adding the attendee, must be kept together by the caller, as SignupService does.
  * Also stores total number of events.
  * Has methods to construct new events, get event with given information, and change the information of
  * event.
+ * It is saved in a compact binary form, written and read by writeExternal and readExternal.
  * @author Group0065
  * @version 1.0.0
  */
-public class EventManager implements Serializable {
+public class EventManager implements Externalizable {
+    private static final long serialVersionUID = 2361581728160074728L;
+    private static final int SNAPSHOT_VERSION = 3;
     private Map<String, Map<String, Event>> eventList;
-    private Map<String, Timestamp[]> eventSchedule;
+    // every event by its id, kept in step with eventList
+    private Map<String, Event> eventIndex;
+    private Map<String, TimeInterval> eventSchedule;
+    // ids of the events by their start time in epoch milliseconds, kept in step with eventSchedule
+    private NavigableMap<Long, NavigableSet<String>> startOrder;
+    // times of the events, kept in step with eventSchedule
+    private IntervalTree intervals;
+    // ids of the events by room and by speaker in lower case, each sorted by start time and then id
+    private Map<String, NavigableSet<String>> eventsByRoom;
+    private Map<String, NavigableSet<String>> eventsBySpeaker;
+    // ranks of the events by attend rate from the highest and then id, and the current rank of each event
+    private NavigableSet<Rank> rateOrder;
+    private Map<String, Rank> ranks;
     private int numTalk;
     private int numParty;
     private int numDiscuss;
+    // Observers are told about every mutation, they are not saved with the events
+    private transient PropertyChangeSupport observers;
+    // number of changes made since the events were read, it is not saved
+    private transient long version;
+    // false from reading the events until the indexes other than the index by id are built, see indexes
+    private transient boolean indexed = true;
+    // the table of names the events were last written with or read from, kept so an event which did not change is
+    // written without looking up its attendees again, it is not saved
+    private transient NameTable names;
 
     /**
      * constructs an new event manager
      */
     public EventManager() {
         eventList = new HashMap<>();
+        eventIndex = new HashMap<>();
         eventSchedule = new TreeMap<>();
+        startOrder = new TreeMap<>();
+        intervals = new IntervalTree();
+        eventsByRoom = new HashMap<>();
+        eventsBySpeaker = new HashMap<>();
+        rateOrder = new TreeSet<>();
+        ranks = new HashMap<>();
         numTalk = 0;
         numParty = 0;
         numDiscuss = 0;
     }
 
+    /**
+     * Adds an observer which is notified after every change to the events. The name of the property is the name
+     * of the operation and the new value is the array of its arguments.
+     * @param observer the observer to add
+     */
+    public synchronized void addObserver(PropertyChangeListener observer) {
+        if (observers == null) observers = new PropertyChangeSupport(this);
+        observers.addPropertyChangeListener(observer);
+    }
+
+    /**
+     * Removes an observer added before, so it is no longer notified about changes to the events.
+     * @param observer the observer to remove
+     */
+    public synchronized void removeObserver(PropertyChangeListener observer) {
+        if (observers != null) observers.removePropertyChangeListener(observer);
+    }
+
+    /**
+     * Writes all events in the compact binary form: the version, then one block with the counters of each kind of
+     * event, the table of the names of rooms and users, and every event under its type in order of start time. The
+     * schedule is not written as it is made of the times of the events.
+     * @param out the output of the ser file
+     * @throws IOException if unable to write
+     */
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        indexes();
+        new SnapshotWriter(out).writeCount(SNAPSHOT_VERSION);
+        // room for about the fields of every event and 4 bytes for each attendee, so the writer seldom has to grow
+        int expectedSize = 64;
+        for (Event event : eventIndex.values()) {
+            expectedSize += 64 + 4 * event.getNumberOfAttendees();
+        }
+        SnapshotWriter writer = new SnapshotWriter(expectedSize);
+        writer.writeCount(numTalk);
+        writer.writeCount(numParty);
+        writer.writeCount(numDiscuss);
+        if (names == null) names = new NameTable();
+        for (Event event : eventIndex.values()) {
+            event.addNamesTo(names);
+        }
+        writer.writeTable(names);
+        writer.writeCount(eventList.size());
+        for (Map.Entry<String, Map<String, Event>> type : eventList.entrySet()) {
+            writer.writeText(type.getKey());
+            writer.writeCount(type.getValue().size());
+            Event previous = null;
+            for (NavigableSet<String> ids : startOrder.values()) {
+                for (String id : ids) {
+                    Event event = type.getValue().get(id);
+                    if (event == null) continue;
+                    event.writeTo(writer, previous);
+                    previous = event;
+                }
+            }
+        }
+        writer.writeBlock(out);
+    }
+
+    /**
+     * Reads all events written by writeExternal, or by the versions before it, and rebuilds the index by id. The
+     * schedule, the start order, the interval tree, the events by room and speaker and the order of attend rate are
+     * rebuilt from the events at once when one of them is first used.
+     * @param in the input of the ser file
+     * @throws IOException if unable to read or the ser file is written by a newer version
+     */
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException {
+        int version = new SnapshotReader(in).readCount();
+        if (version > SNAPSHOT_VERSION) throw new InvalidClassException("Unknown event data version " + version);
+        // versions before 3 are not written in a block, and write names inline instead of in a table
+        SnapshotReader reader = version >= 3 ? SnapshotReader.readBlock(in) : new SnapshotReader(in);
+        numTalk = reader.readCount();
+        numParty = reader.readCount();
+        numDiscuss = reader.readCount();
+        if (version >= 3) names = reader.readTable();
+        int types = reader.readCount();
+        for (int i = 0; i < types; i++) {
+            String type = version >= 3 ? reader.readText() : reader.readName();
+            int size = reader.readCount();
+            Map<String, Event> events = eventList.computeIfAbsent(type, k -> new HashMap<>(size * 4 / 3 + 1));
+            Event previous = null;
+            for (int j = 0; j < size; j++) {
+                Event event = version >= 3 ? Event.readFrom(reader, names, previous) : Event.readFrom(reader, version);
+                events.put(event.getId(), event);
+                eventIndex.put(event.getId(), event);
+                previous = event;
+            }
+        }
+        // the other indexes are only built when they are first used, many sessions never use most of them
+        indexed = false;
+    }
+
+    // helper to build the indexes of the events read from a ser file the first time they are used, every method
+    // which uses an index other than the index by id calls it first, holding the lock of the manager
+    private void indexes() {
+        if (indexed) return;
+        // the events are sorted by start time and then id, so the sorted indexes are filled in order
+        Event[] read = eventIndex.values().toArray(new Event[0]);
+        Arrays.sort(read, Comparator.comparingLong((Event event) -> event.getStartTime().getTime())
+                .thenComparing(Event::getId));
+        String[] ids = new String[read.length];
+        long[] starts = new long[read.length];
+        long[] ends = new long[read.length];
+        for (int i = 0; i < read.length; i++) {
+            TimeInterval time = TimeInterval.of(read[i].getStartTime(), read[i].getEndTime());
+            ids[i] = read[i].getId();
+            starts[i] = time.getStart();
+            ends[i] = time.getEnd();
+            eventSchedule.put(ids[i], time);
+            startOrder.computeIfAbsent(starts[i], k -> new TreeSet<>()).add(ids[i]);
+            addToPlaces(read[i]);
+            updateRank(ids[i]);
+        }
+        intervals.addSorted(ids, starts, ends);
+        indexed = true;
+    }
+
+    // helper to notify the observers about a change
+    private synchronized void notifyObservers(String operation, Object... args) {
+        version++;
+        if (observers != null) observers.firePropertyChange(operation, null, args);
+    }
+
+    /**
+     * Gets the modification version of the events, which goes up by one with every change, so the events only need to be
+     * saved when it is not the same as when they were last saved.
+     * @return the modification version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies a change recorded by an observer again, used to restore the events from a journal.
+     * @param operation the name of the operation
+     * @param args the arguments of the operation
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void applyRecord(String operation, Object[] args) {
+        switch (operation) {
+            case "createEvent":
+                createEvent((String) args[0], (String) args[1], (Timestamp) args[2], (Timestamp) args[3],
+                        (String) args[4], (String) args[5], (Integer) args[6], (List<String>) args[7]);
+                break;
+            case "addAttendee":
+                addAttendee((String) args[0], (String) args[1]);
+                break;
+            case "removeAttendee":
+                removeAttendee((String) args[0], (String) args[1]);
+                break;
+            case "scheduleSpeaker":
+                scheduleSpeaker((String) args[0], (String) args[1]);
+                break;
+            case "rescheduleEvent":
+                rescheduleEvent((String) args[0], (Timestamp) args[1], (Timestamp) args[2]);
+                break;
+            case "cancelEvent":
+                cancelEvent((String) args[0]);
+                break;
+            case "setCapacity":
+                setCapacity((String) args[0], (Integer) args[1]);
+                break;
+            case "joinWaitlist":
+                joinWaitlist((String) args[0], (String) args[1]);
+                break;
+            case "leaveWaitlist":
+                leaveWaitlist((String) args[0], (String) args[1]);
+                break;
+            case "pollWaitlist":
+                pollWaitlist((String) args[0]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event operation: " + operation);
+        }
+    }
+
     // a helper function to find event by id
     private Event findEvent(String id) {
-        for (Map<String, Event> events: eventList.values()) {
-            if (events != null && events.get(id) != null) {
-                return events.get(id);
-            }
+        return id == null ? null : eventIndex.get(id);
+    }
+
+
+    // helper to put an event into the start order and the interval tree
+    private void addToTimes(String id, TimeInterval time) {
+        startOrder.computeIfAbsent(time.getStart(), k -> new TreeSet<>()).add(id);
+        intervals.add(id, time.getStart(), time.getEnd());
+    }
+
+    // helper to take an event out of the start order and the interval tree
+    private void removeFromTimes(String id, TimeInterval time) {
+        NavigableSet<String> ids = startOrder.get(time.getStart());
+        if (ids != null && ids.remove(id) && ids.isEmpty()) startOrder.remove(time.getStart());
+        intervals.remove(id, time.getStart());
+    }
+
+    // helper to order ids of events by start time and then id
+    private int compareStart(String id1, String id2) {
+        int order = eventIndex.get(id1).getStartTime().compareTo(eventIndex.get(id2).getStartTime());
+        return order != 0 ? order : id1.compareTo(id2);
+    }
+
+    // the attend rate of an event when it was ranked, ordered from the highest rate and then by id
+    private static final class Rank implements Comparable<Rank> {
+        private final double rate;
+        private final String id;
+
+        private Rank(double rate, String id) {
+            this.rate = rate;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            int order = Double.compare(other.rate, rate);
+            return order != 0 ? order : id.compareTo(other.id);
         }
-        return null;
     }
 
+    // helper to rank an event again after its attendees or capacity changed
+    private void updateRank(String id) {
+        Rank rank = new Rank(getAttendRate(id), id);
+        Rank old = ranks.put(id, rank);
+        if (old != null) rateOrder.remove(old);
+        rateOrder.add(rank);
+    }
+
+    // helper to take an event out of the ranks
+    private void removeRank(String id) {
+        Rank old = ranks.remove(id);
+        if (old != null) rateOrder.remove(old);
+    }
+
+    // helper to put an event under its room and its speakers, it must be taken out before its time or hosts change
+    private void addToPlaces(Event event) {
+        eventsByRoom.computeIfAbsent(event.getLocation().toLowerCase(), k -> new TreeSet<>(this::compareStart))
+                .add(event.getId());
+        List<String> hosts = event.getHosts();
+        if (hosts == null) return;
+        for (String host : hosts) {
+            if (host != null) eventsBySpeaker.computeIfAbsent(host.toLowerCase(),
+                    k -> new TreeSet<>(this::compareStart)).add(event.getId());
+        }
+    }
+
+    // helper to take an event out from under its room and its speakers
+    private void removeFromPlaces(Event event) {
+        removeFromPlace(eventsByRoom, event.getLocation(), event.getId());
+        List<String> hosts = event.getHosts();
+        if (hosts == null) return;
+        for (String host : hosts) {
+            if (host != null) removeFromPlace(eventsBySpeaker, host, event.getId());
+        }
+    }
+
+    // helper to take an event out from under one room or speaker
+    private void removeFromPlace(Map<String, NavigableSet<String>> places, String name, String id) {
+        NavigableSet<String> ids = places.get(name.toLowerCase());
+        if (ids != null && ids.remove(id) && ids.isEmpty()) places.remove(name.toLowerCase());
+    }
 
     //private helper
     private int totalNumberOfEvents(){
-        int sum = 0;
-        for (Map<String, Event> events: eventList.values()){
-            if (events != null) sum += events.size();
-        }
-        return sum;
+        return eventIndex.size();
     }
 
-    private String[] getEventScheduleValue(Timestamp sTime, Timestamp eTime, String eventId) {
-        String time = sTime.toString();
+    private String[] getEventScheduleValue(TimeInterval times, String eventId) {
+        String time = times.getStartTime().toString();
         time = time.substring(0, time.length() - 3);
-        String time2 = eTime.toString();
+        String time2 = times.getEndTime().toString();
         time2 = time2.substring(0, time2.length() - 3);
         return new String[]{time, time2, eventId, Objects.requireNonNull(findEvent(eventId)).getName()};
     }
@@ -66,11 +359,11 @@ public class EventManager implements Serializable {
      * Gets Schedule of all events
      * @return A list of arrays where in the format [time, id, event name]
      */
-    protected List<String[]> getEventSchedule() {
+    protected synchronized List<String[]> getEventSchedule() {
+        indexes();
         List<String[]> lst = new ArrayList<>();
         for (String eventId : eventSchedule.keySet()) {
-            Timestamp[] value = eventSchedule.get(eventId);
-            lst.add(getEventScheduleValue(value[0], value[1], eventId));
+            lst.add(getEventScheduleValue(eventSchedule.get(eventId), eventId));
             }
         return lst;
     }
@@ -79,12 +372,12 @@ public class EventManager implements Serializable {
      * gets the list of the events that have no attendee
      * @return the list of the event that have no attendee
      */
-    protected List<String[]> getEmptyEvents() {
+    protected synchronized List<String[]> getEmptyEvents() {
+        indexes();
         List<String[]> eventLst = new ArrayList<>();
         for (String event: eventSchedule.keySet()) {
-            if (getAttendees(event).size() == 0) {
-                Timestamp[] value = eventSchedule.get(event);
-                String[] inform = getEventScheduleValue(value[0], value[1], event);
+            if (findEvent(event).getNumberOfAttendees() == 0) {
+                String[] inform = getEventScheduleValue(eventSchedule.get(event), event);
                 inform[3] = getName(event);
                 eventLst.add(inform);
             }
@@ -93,40 +386,53 @@ public class EventManager implements Serializable {
     }
 
     /**
-     * Gets the event that is attendable for the user
+     * Gets the event that is attendable for the user, that is every event which does not overlap any time the user is
+     * unavailable. The unavailable times are sorted and merged, and then swept together with the events in the order
+     * of their start time in one pass.
      * @param unavailableTime List of list of timestamp that user is unavailable
-     * @return A list of arrays where in the format [time, id, event name]
+     * @return A list of arrays where in the format [time, id, event name], sorted by start time
      */
-    protected List<String[]> getEventsAttendable(List<Timestamp[]> unavailableTime) {
-        List<String> events = new ArrayList<>(eventSchedule.keySet());
-        for (Timestamp[] times: unavailableTime) {
-            if (!getEventsByTime(times[0], times[1]).isEmpty()){
-                for (String removeEvent: getEventsByTime(times[0], times[1])) {
-                    events.remove(removeEvent);}
-            }
-        }
+    protected synchronized List<String[]> getEventsAttendable(List<TimeInterval> unavailableTime) {
+        indexes();
+        List<TimeInterval> busy = mergeTimes(unavailableTime);
         List<String[]> complete = new ArrayList<>();
-        for (String event: events) {
-            Timestamp start = Objects.requireNonNull(findEvent(event)).getStartTime();
-            Timestamp end = Objects.requireNonNull(findEvent(event)).getEndTime();
-            String[] information = {start.toString().substring(0, start.toString().length() - 3), end.toString().substring(0, end.toString().length() - 3), event, Objects.requireNonNull(findEvent(event)).getName()};
-            complete.add(information);
+        int next = 0;
+        for (Map.Entry<Long, NavigableSet<String>> start : startOrder.entrySet()) {
+            // busy times which end before this start can not overlap this or any later event
+            while (next < busy.size() && busy.get(next).getEnd() <= start.getKey()) next++;
+            for (String event : start.getValue()) {
+                TimeInterval time = eventSchedule.get(event);
+                if (next == busy.size() || busy.get(next).getStart() >= time.getEnd()) {
+                    complete.add(getEventScheduleValue(time, event));
+                }
+            }
         }
         return complete;
     }
 
+    // helper to sort the given times by start and merge the ones which overlap
+    private List<TimeInterval> mergeTimes(List<TimeInterval> times) {
+        List<TimeInterval> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        List<TimeInterval> merged = new ArrayList<>();
+        for (TimeInterval time : sorted) {
+            TimeInterval last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && time.getStart() < last.getEnd()) {
+                merged.set(merged.size() - 1, new TimeInterval(last.getStart(), Math.max(last.getEnd(), time.getEnd())));
+            } else {
+                merged.add(time);
+            }
+        }
+        return merged;
+    }
+
     /**
      * Checks if an event exist.
      * @param eventID id of the new event
      * @return true if event exists
      */
-    public boolean checkEvent(String eventID) {
-        for (Map<String, Event> events: eventList.values()) {
-            if (events != null && events.get(eventID) != null) {
-                return true;
-            }
-        }
-        return false;
+    public synchronized boolean checkEvent(String eventID) {
+        return findEvent(eventID) != null;
     }
 
     /**
@@ -146,18 +452,26 @@ public class EventManager implements Serializable {
      * @param host the host of the new event
      * @return return event id if create successfully, otherwise return null.
      */
-    public String createEvent(String type, String name, Timestamp startTime, Timestamp endTime,
+    public synchronized String createEvent(String type, String name, Timestamp startTime, Timestamp endTime,
                               String location, String description, int capacity,
                                List<String> host) {
+        indexes();
         EventFactory ef = new EventFactory(numTalk, numParty, numDiscuss);
         Event newEvent = ef.createEvent(type, name, startTime, endTime,location,description,capacity, host);
         if (newEvent != null) {
             this.eventList.computeIfAbsent(type, k -> new HashMap<>());
             this.eventList.get(type).put(newEvent.getId(), newEvent);
-            this.eventSchedule.put(newEvent.getId(), new Timestamp[]{startTime, endTime});
+            this.eventIndex.put(newEvent.getId(), newEvent);
+            TimeInterval time = TimeInterval.of(startTime, endTime);
+            this.eventSchedule.put(newEvent.getId(), time);
+            addToTimes(newEvent.getId(), time);
+            addToPlaces(newEvent);
+            updateRank(newEvent.getId());
             numTalk = ef.updateEvent().get(0);
             numParty = ef.updateEvent().get(1);
             numDiscuss = ef.updateEvent().get(2);
+            notifyObservers("createEvent", type, name, startTime, endTime, location, description, capacity,
+                    new ArrayList<>(host));
             return newEvent.getId();
         }
         return null;
@@ -167,36 +481,22 @@ public class EventManager implements Serializable {
      * Gets all the events starts during the given period of time.
      * @param startTime start of the time period
      * @param endTime end of the time period
-     * @return a map contains all events start during the given period of time with start time map to them
-     */
-    protected List<String> getEventsByTime(Timestamp startTime, Timestamp endTime) {
-        List<String> eventInTime = new ArrayList<>();
-        for (String events : eventSchedule.keySet()) {
-            Timestamp[] times = eventSchedule.get(events);
-            if (times[0].after(startTime) && times[1].before(endTime)) {
-                eventInTime.add(events);
-            }
-        }
-        return startTimeSort(eventInTime);
+     * @return a list of ids of all events start during the given period of time, sorted by start time
+     */
+    protected synchronized List<String> getEventsByTime(Timestamp startTime, Timestamp endTime) {
+        indexes();
+        return intervals.inside(startTime.getTime(), endTime.getTime());
     }
 
     /**
      * Gets all the events are held in a given room.
      * @param location the name of given room
-     * @return a map contains all events are held in the given room by event id mapped to event name
+     * @return a list of ids of all events held in the given room, sorted by start time
      */
-    protected List<String> getEventByLocation(String location){
-        List<String> result = new ArrayList<>();
-        for(Map<String, Event> events: eventList.values()){
-            if(events != null){
-                for (Event event : events.values()){
-                    if (event != null && event.getLocation().equalsIgnoreCase(location)) result.add(
-                            event.getId());
-                }
-            }
-        }
-
-        return startTimeSort(result);
+    protected synchronized List<String> getEventByLocation(String location){
+        indexes();
+        NavigableSet<String> ids = eventsByRoom.get(location.toLowerCase());
+        return ids == null ? new ArrayList<>() : new ArrayList<>(ids);
     }
 
     /**
@@ -205,12 +505,16 @@ public class EventManager implements Serializable {
      * @param id id of the event we want to add the user in
      * @return true of added successfully, else false
      */
-    public boolean addAttendee(String userName, String id){
+    public synchronized boolean addAttendee(String userName, String id){
+        indexes();
         Event event = findEvent(id);
-        if (event == null || event.isInEvent(userName)) return false;
-        else{
-            return event.addAttendee(userName);
+        if (event == null || event.isInEvent(userName) || !event.canSignup()) return false;
+        if (event.addAttendee(userName)) {
+            updateRank(id);
+            notifyObservers("addAttendee", userName, id);
+            return true;
         }
+        return false;
     }
 
     /**
@@ -219,9 +523,65 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to add the user in
      * @return true of removed successfully, else false
      */
-    public boolean removeAttendee(String userName, String eventID){
+    public synchronized boolean removeAttendee(String userName, String eventID){
+        indexes();
+        Event event = findEvent(eventID);
+        if (event == null || !event.isInEvent(userName)) return false;
+        event.removeAttendee(userName);
+        updateRank(eventID);
+        notifyObservers("removeAttendee", userName, eventID);
+        return true;
+    }
+
+    /**
+     * Puts a given user at the end of the waitlist of a full event.
+     * @param userName the username of user who wants to wait for a place
+     * @param eventID id of the event
+     * @return true if the user is now waiting, false if the event does not exist, is not full, or the user is already
+     * an attendee or waiting
+     */
+    public synchronized boolean joinWaitlist(String userName, String eventID){
+        Event event = findEvent(eventID);
+        if (event == null || event.canSignup() || event.isInEvent(userName) || !event.addToWaitlist(userName)) {
+            return false;
+        }
+        notifyObservers("joinWaitlist", userName, eventID);
+        return true;
+    }
+
+    /**
+     * Takes a given user off the waitlist of an event.
+     * @param userName the username of user who no longer waits
+     * @param eventID id of the event
+     * @return true if the user was waiting, else false
+     */
+    public synchronized boolean leaveWaitlist(String userName, String eventID){
+        Event event = findEvent(eventID);
+        if (event == null || !event.removeFromWaitlist(userName)) return false;
+        notifyObservers("leaveWaitlist", userName, eventID);
+        return true;
+    }
+
+    /**
+     * Takes the user who has waited the longest off the waitlist of an event, so they can be given a place.
+     * @param eventID id of the event
+     * @return the username of the user, or null if the event does not exist or nobody is waiting
+     */
+    protected synchronized String pollWaitlist(String eventID){
         Event event = findEvent(eventID);
-        return event != null && event.removeAttendee(userName);
+        String userName = event == null ? null : event.pollWaitlist();
+        if (userName != null) notifyObservers("pollWaitlist", eventID);
+        return userName;
+    }
+
+    /**
+     * Returns the users waiting for a place in a given event.
+     * @param eventID id of the event we want to work on
+     * @return the usernames from the user who has waited the longest, or null if this event does not exist
+     */
+    public synchronized List<String> getWaitlist(String eventID){
+        Event event = findEvent(eventID);
+        return (event == null) ? null : event.getWaitlist();
     }
 
     //schedule a speaker
@@ -231,10 +591,16 @@ public class EventManager implements Serializable {
      * @param username the user we want to schedule as the speaker of the event
      * @return true if scheduled successfully. else false
      */
-    protected boolean scheduleSpeaker (String eventID, String username) {
+    protected synchronized boolean scheduleSpeaker (String eventID, String username) {
+        indexes();
         Event event = findEvent(eventID);
-        if (event != null){
-            return event.changeHost(username);
+        if (event == null) return false;
+        removeFromPlaces(event);
+        boolean changed = event.changeHost(username);
+        addToPlaces(event);
+        if (changed) {
+            notifyObservers("scheduleSpeaker", eventID, username);
+            return true;
         }
         return false;
     }
@@ -248,14 +614,19 @@ public class EventManager implements Serializable {
      * @param endTime the new time we want the event end at
      * @return true if rescheduled successfully, else false
      */
-    protected boolean rescheduleEvent(String eventID, Timestamp startTime, Timestamp endTime) {
+    protected synchronized boolean rescheduleEvent(String eventID, Timestamp startTime, Timestamp endTime) {
+        indexes();
         Event event = findEvent(eventID);
         if (event != null && startTime != event.getStartTime() && endTime != event.getEndTime()) {
-            Timestamp[] times = {startTime, endTime};
-            eventSchedule.remove(eventID);
+            TimeInterval times = TimeInterval.of(startTime, endTime);
+            removeFromTimes(eventID, eventSchedule.get(eventID));
+            removeFromPlaces(event);
             eventSchedule.put(eventID, times);
             event.setStartTime(startTime);
             event.setEndTime(endTime);
+            addToTimes(eventID, times);
+            addToPlaces(event);
+            notifyObservers("rescheduleEvent", eventID, startTime, endTime);
             return true;
         }
         return false;
@@ -266,13 +637,19 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to cancel
      * @return true if rescheduled successfully, else false
      */
-    protected boolean cancelEvent(String eventID) {
+    protected synchronized boolean cancelEvent(String eventID) {
+        indexes();
         Event event = findEvent(eventID);
         if (event == null) return false;
+        removeFromTimes(eventID, eventSchedule.get(eventID));
+        removeFromPlaces(event);
+        removeRank(eventID);
         eventSchedule.remove(eventID);
+        eventIndex.remove(eventID);
         for (Map<String, Event> eventMap : eventList.values()) {
-            eventMap.remove(eventID);
+            if (eventMap.remove(eventID) != null) break;
         }
+        notifyObservers("cancelEvent", eventID);
         return true;
     }
 
@@ -282,7 +659,7 @@ public class EventManager implements Serializable {
      * @param ID id of the event we want to get description
      * @return the toString of event with given id if it exists
      */
-    public String provideDescription(String ID){
+    public synchronized String provideDescription(String ID){
         Event event = findEvent(ID);
         return (event == null) ? null : event.toString();
     }
@@ -292,7 +669,7 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return the list of hosts for this event, or null if this event does not exist
      */
-    public List<String> getHosts(String eventID){
+    public synchronized List<String> getHosts(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getHosts();
     }
@@ -302,18 +679,29 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return the list of hosts for this event, or null if this event does not exist
      */
-    public List<String> getAttendees(String eventID){
+    public synchronized List<String> getAttendees(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getAttendees();
     }
 
 
+    /**
+     * Checks if a user is one of the attendees of a given event.
+     * @param userName the username of the user
+     * @param eventID id of the event we want to work on
+     * @return true if the user is an attendee of the event, false if not or this event does not exist
+     */
+    public synchronized boolean isAttendee(String userName, String eventID){
+        Event event = findEvent(eventID);
+        return event != null && event.isInEvent(userName);
+    }
+
     /**
      * Returns the start time of a given event.
      * @param eventID id of the event we want to work on
      * @return start time of the event, or null if this event does not exist
      */
-    public Timestamp getStartTime(String eventID){
+    public synchronized Timestamp getStartTime(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getStartTime();
     }
@@ -323,7 +711,7 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return end time of the event, or null if this event does not exist
      */
-    public Timestamp getEndTime(String eventID){
+    public synchronized Timestamp getEndTime(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getEndTime();
     }
@@ -333,10 +721,10 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return type of the event, or null if this event does not exist
      */
-    public String getEventType(String eventID){
+    public synchronized String getEventType(String eventID){
+        if (findEvent(eventID) == null) return null;
         for (String types: eventList.keySet()) {
-            if (eventList.get(types).containsKey(eventID));
-            return types;
+            if (eventList.get(types).containsKey(eventID)) return types;
         }
         return null;
     }
@@ -346,7 +734,7 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return name of the event, or null if this event does not exist
      */
-    public String getName(String eventID){
+    public synchronized String getName(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getName();
     }
@@ -356,7 +744,7 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return room where the event located
      */
-    protected String getRoom(String eventID){
+    protected synchronized String getRoom(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getLocation();
     }
@@ -366,7 +754,7 @@ public class EventManager implements Serializable {
      * @param eventID id of the event we want to work on
      * @return an int represents the capacity of the event
      */
-    protected int getCapacity(String eventID){
+    protected synchronized int getCapacity(String eventID){
         Event event = findEvent(eventID);
         return (event == null) ? null : event.getCapacity();
     }
@@ -377,12 +765,15 @@ public class EventManager implements Serializable {
      * @param newcapacity an int represents the new capacity
      * @return true if capacity has been successfully changed
      */
-    protected boolean setCapacity(String eventID, int newcapacity){
+    protected synchronized boolean setCapacity(String eventID, int newcapacity){
+        indexes();
         Event event = findEvent(eventID);
         if (event == null){
             return false;
         }
         event.setCapacity(newcapacity);
+        updateRank(eventID);
+        notifyObservers("setCapacity", eventID, newcapacity);
         return true;
     }
 
@@ -390,7 +781,7 @@ public class EventManager implements Serializable {
      * Checks of there are still space in the event
      * @return true if and only if the event is not full
      */
-    protected boolean canSignup(String eventID){
+    protected synchronized boolean canSignup(String eventID){
         Event event = findEvent(eventID);
         return event != null && event.canSignup();
     }
@@ -398,62 +789,37 @@ public class EventManager implements Serializable {
     /**
      * gives a list of the event that are held by the specific speaker
      * @param speaker the name of the speaker
-     * @return the list of event hold by the speaker b
+     * @return the list of event hold by the speaker, sorted by start time
      */
-    protected List<String> getEventBySpeaker(String speaker){
-        List<String> result = new ArrayList<>();
-        for(Map<String, Event> eventMap: eventList.values()){
-            for(Event event: eventMap.values()){
-                if(!(event.getHosts() == null) && event.getHosts().contains(speaker)){
-                    result.add(event.getId());
-                } }
-        }
-        return startTimeSort(result);
+    protected synchronized List<String> getEventBySpeaker(String speaker){
+        indexes();
+        NavigableSet<String> ids = eventsBySpeaker.get(speaker.toLowerCase());
+        return ids == null ? new ArrayList<>() : new ArrayList<>(ids);
     }
     /**
-     * get number of attendees of an event.
-     * @return true if and only if the event is not full
+     * Gets the attend rate of an event, the number of attendees over the capacity.
+     * @param eventID id of the event we want to work on
+     * @return the attend rate of the event, or 0 if this event does not exist
      */
-    protected Map<Double, String[]> getAttendRate(){
-        Map<Double, String[]> unSortedMap = new HashMap<>();
-        for(Map<String, Event> eventMap: eventList.values()){
-            for(Event event: eventMap.values()){
-                int total = event.getAttendees().size();
-                double attendRate = (total * 1.0) / (event.getCapacity() * 1.0);
-                String[] eventInformation= {event.getId(), event.getName()};
-                unSortedMap.put(attendRate, eventInformation);
-                }
-        }
-        Map<Double, String[]> SortedMap = new TreeMap<>(Collections.reverseOrder());
-        SortedMap.putAll(unSortedMap);
-        return SortedMap;
+    protected synchronized double getAttendRate(String eventID){
+        Event event = findEvent(eventID);
+        if (event == null) return 0;
+        return (event.getNumberOfAttendees() * 1.0) / (event.getCapacity() * 1.0);
     }
 
-    //helper to sort list of events by time.
-    private List<String> startTimeSort(List<String> events){
-        if(events == null || events.isEmpty()){
-            return events;
-        }
+    /**
+     * Gets the events with the highest attend rate. Events with the same rate are all kept, ordered by id.
+     * @param number the most number of events to get
+     * @return ids of the events with the highest attend rate, from the highest
+     */
+    protected synchronized List<String> getTopAttendRate(int number){
+        indexes();
         List<String> result = new ArrayList<>();
-        while(!events.isEmpty()){
-            String pivot = events.get(0);
-            Timestamp time = findEvent(pivot).getStartTime();
-            for(String event: events){
-                if(findEvent(event).getStartTime().before(time)){
-                    time = findEvent(event).getStartTime();
-                    pivot = event;
-                }
-                else if(findEvent(event).getStartTime().equals(time)){
-                    if(pivot.compareTo(event) < 0){
-                        pivot = event;
-                    }
-                }
-            }
-            result.add(pivot);
-            events.remove(pivot);
+        for (Rank rank : rateOrder) {
+            if (result.size() >= number) break;
+            result.add(rank.id);
         }
         return result;
     }
 
 }
-
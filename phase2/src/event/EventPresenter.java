@@ -75,6 +75,33 @@ public class EventPresenter extends MainPresenter {
         }else{super.printErrorMessage("attendee is already in the event");}
     }
 
+    /**
+     * Prints out the result of signing up for an event.
+     * @param signedUp true if signed up successfully, else false
+     */
+    void signUpMessage(boolean signedUp) {
+        if (signedUp){super.printActionMessage("event is signed up successfully.");
+        }else{super.printErrorMessage("fail to sign up event, it may be full or at the same time as your events.");}
+    }
+
+    /**
+     * Tells the user that the event is full and they are now waiting for a place.
+     * @param position the place of the user on the waitlist, starting from 1
+     */
+    void waitlistMessage(int position) {
+        super.printActionMessage("event is full, you are number " + position + " on the waitlist and will be signed up "
+                + "when a place opens.");
+    }
+
+    /**
+     * Prints out the result of dropping an event.
+     * @param dropped true if dropped successfully, else false
+     */
+    void dropMessage(boolean dropped) {
+        if (dropped){super.printActionMessage("event is canceled successfully.");
+        }else{super.printErrorMessage("you are not signed up for this event.");}
+    }
+
     /**
      * Prints out the list of toString description of all events starts in given time period.
      * If there are no event in given map, tells user that no event found
@@ -469,20 +496,16 @@ public class EventPresenter extends MainPresenter {
 
     /**
      * prints the information of the top events
-     * @param eventRates the rates of event
+     * @param events the id and name of each event, from the highest rate
+     * @param rates the rate of each event
      */
-    void printTopEvents(Map<Double, String[]> eventRates){
-        String ratestr;
+    void printTopEvents(List<String[]> events, List<Double> rates){
         super.printActionMessage("The statistic information of events that have highest attend rate are printed:");
         StringBuilder summaryStr = new StringBuilder();
-        for (Double rate: eventRates.keySet()) {
-            summaryStr.append(eventRates.get(rate)[0]);
-            summaryStr.append(" ").append(eventRates.get(rate)[1]).append(" has attend rate: ");
-            if (rate != 0) {
-                ratestr = String.valueOf(rate * 100).substring(0, 5) + "%";}else{
-                ratestr = (rate * 100) + "%";
-            }
-            summaryStr.append(ratestr).append(" ");
+        for (int i = 0; i < events.size(); i++) {
+            summaryStr.append(events.get(i)[0]);
+            summaryStr.append(" ").append(events.get(i)[1]).append(" has attend rate: ");
+            summaryStr.append(String.format("%.2f", rates.get(i) * 100)).append("% ");
         }
         System.out.println(summaryStr);
         super.getInput();
@@ -1,6 +1,7 @@
 package event;
 
 import Input.UserInput;
+import data.TimeInterval;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -14,16 +15,21 @@ import java.util.*;
  */
 public class EventSystem {
     private EventManager events;
+    // every sign up, drop, cancellation and change of capacity goes through it, so it is required
+    private SignupService signups;
     private EventPresenter presenter;
     private UserInput sc = new UserInput();
 
 
     /**
-     * constructs an event system
+     * constructs an event system which signs users up through the given signup service
      * @param events is the event manager that the system uses
+     * @param signups is the signup service shared by every session, over the same event manager
+     * @throws NullPointerException if the signup service is null
      */
-    public EventSystem(EventManager events) {
+    public EventSystem(EventManager events, SignupService signups) {
         this.events = events;
+        this.signups = Objects.requireNonNull(signups, "signups");
         this.presenter = new EventPresenter();
     }
 
@@ -160,6 +166,34 @@ public class EventSystem {
         }
     }
 
+    /**
+     * Signs a user up for an event, both as an attendee of the event and in the account of the user, and prints
+     * whether it worked. If the event is full, the user is put on its waitlist instead.
+     * @param eventId the event to sign up for
+     * @param username the username of the user
+     */
+    public void signUp(String eventId, String username) {
+        if (eventId == null || username == null) return;
+        if (signups.signUp(username, eventId)) {
+            presenter.signUpMessage(true);
+        } else if (signups.joinWaitlist(username, eventId)) {
+            presenter.waitlistMessage(events.getWaitlist(eventId).size());
+        } else {
+            presenter.signUpMessage(false);
+        }
+    }
+
+    /**
+     * Drops a user from an event, both from the attendees of the event and from the account of the user, and prints
+     * whether it worked.
+     * @param eventId the event to drop
+     * @param username the username of the user
+     */
+    public void drop(String eventId, String username) {
+        if (eventId == null || username == null) return;
+        presenter.dropMessage(signups.drop(username, eventId));
+    }
+
     /**
      * Shows the description of an event which the event id is given by user input.
      * Gives prompt to user to enter event id.
@@ -237,7 +271,7 @@ public class EventSystem {
      * Prints out all attendable events in the format [time, id, event name] by given the times.
      * @param unavailableTimeLists the list of times unavailable for attendee.
      */
-    public void viewEventsAttendable(List<Timestamp[]> unavailableTimeLists) {
+    public void viewEventsAttendable(List<TimeInterval> unavailableTimeLists) {
         if (unavailableTimeLists == null){return;}
         List<String[]> allEvents = events.getEventsAttendable(unavailableTimeLists);
         if (allEvents.size() == 0) {
@@ -319,11 +353,12 @@ public class EventSystem {
      * If the event id is invalid, print out feedback to user.
      * If the event id is valid, then cancel this event and print out the feedback that the event is removed in event
      * system successfully.
+     * The attendees and the users on the waitlist of the event are told by a message that it is cancelled.
      * @param eventId A string representing the ID of a valid and existed event.
      * @return A string represents the ID of the cancelled event if it's already cancelled.
      */
     public String cancelEvent(String eventId) {
-        events.cancelEvent(eventId);
+        signups.cancel(eventId);
         presenter.cancelEvent();
         return eventId;
     }
@@ -366,28 +401,6 @@ public class EventSystem {
         return allSpeakers;
     }
 
-    /**
-     * Print a message if the attendee has been removed from an event successfully.
-     @param attendeeName A string representing the username of attendee for remove from the enrollment of that event.
-     @return A string representing the event dropped.
-     */
-    public String removeAttendee(String attendeeName){
-        if (attendeeName == null){return null;}
-        presenter.askEventId();
-        String eventId = sc.inputString();
-        if(eventId == null){
-            return null;
-        }
-        if (!this.checkEvent(eventId)){
-            presenter.eventNotExist();
-            return null;}
-        if(!events.getAttendees(eventId).contains(attendeeName)) {
-            presenter.printErrorMessage(attendeeName + "is not enrolled in the event.");
-        } else {
-            events.removeAttendee(eventId, attendeeName);
-        } return attendeeName;
-    }
-
     /**
      * Checks if there exists an event with id given from user input.
      * @return given id if exists, null elsewise
@@ -506,13 +519,13 @@ public class EventSystem {
     }
 
     /**
-     * Changes the event capacity of given event to given capacity.
+     * Changes the event capacity of given event to given capacity, new places go to the users on the waitlist.
      * @param eventId id of event want to operate
      * @param capacity new capacity
      */
     public void changeEventCapacity(String eventId, int capacity){
         if(capacity > 0){
-            this.events.setCapacity(eventId, capacity);
+            signups.changeCapacity(eventId, capacity);
             presenter.changeCapacity();
         }else{
             presenter.failToChangeCapacity();
@@ -543,17 +556,15 @@ public class EventSystem {
      * prints most popular five events of the system
      */
     public void getEventsTopF(){
-        Map<Double, String[]> allRate = events.getAttendRate();
-        Map<Double, String[]> topFive = new HashMap<>();
-        List<Double> rates = new ArrayList<>(allRate.keySet());
-        List<String[]> events = new ArrayList<>(allRate.values());
-        int i = 0;
-        if (allRate.size() == 0) {presenter.printNoEvent();
+        List<String> topFive = events.getTopAttendRate(5);
+        if (topFive.size() == 0) {presenter.printNoEvent();
             return;}
-        while (i < allRate.keySet().size() && i <= 5){
-            topFive.put(rates.get(i), events.get(i));
-            i += 1;
+        List<String[]> eventInformation = new ArrayList<>();
+        List<Double> rates = new ArrayList<>();
+        for (String eventID : topFive) {
+            eventInformation.add(new String[]{eventID, events.getName(eventID)});
+            rates.add(events.getAttendRate(eventID));
         }
-        presenter.printTopEvents(topFive);
+        presenter.printTopEvents(eventInformation, rates);
     }
 }
@@ -0,0 +1,200 @@
+package event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An index of the times of events, used to find the events inside a period of time without looking at every event.
+ * Every event is kept as the interval from its start time to its end time, in milliseconds, in a balanced search tree
+ * (a treap) sorted by start time and then id. Each node also keeps the earliest end in its subtree.
+ * A query only goes down the sides of a node whose start times can be in the period, and skips a subtree when every
+ * event in it ends after the period. Events are found in the order of the tree, that is sorted by start time and then
+ * id. An event which starts in the period but ends after it may still be looked at without being found.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class IntervalTree {
+
+    private final Random priorities = new Random(207);
+    private Node root;
+    private int size;
+
+    // a node of the tree, one for each event
+    private static class Node {
+        final String id;
+        final long start;
+        final long end;
+        final int priority;
+        Node left;
+        Node right;
+        long minEnd;
+
+        Node(String id, long start, long end, int priority) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            minEnd = end;
+        }
+    }
+
+    /**
+     * Gets the number of events in the tree.
+     * @return the number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an event into the tree. The event must not be in the tree already.
+     * @param id id of the event
+     * @param start start time of the event in milliseconds
+     * @param end end time of the event in milliseconds
+     */
+    public void add(String id, long start, long end) {
+        root = insert(root, new Node(id, start, end, priorities.nextInt()));
+        size++;
+    }
+
+    /**
+     * Fills an empty tree with many events at once, in linear time. The events must be sorted by start time and then
+     * id, with no id twice.
+     * @param ids ids of the events
+     * @param starts start times of the events in milliseconds
+     * @param ends end times of the events in milliseconds
+     * @throws IllegalStateException if the tree is not empty
+     */
+    public void addSorted(String[] ids, long[] starts, long[] ends) {
+        if (root != null) throw new IllegalStateException("the tree is not empty");
+        // the right spine of the tree built so far, each new node is the largest key so it goes on that spine
+        Node[] spine = new Node[ids.length];
+        int depth = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Node node = new Node(ids[i], starts[i], ends[i], priorities.nextInt());
+            Node last = null;
+            while (depth > 0 && spine[depth - 1].priority < node.priority) {
+                last = spine[--depth];
+            }
+            node.left = last;
+            if (depth > 0) spine[depth - 1].right = node;
+            spine[depth++] = node;
+        }
+        root = depth > 0 ? spine[0] : null;
+        size = ids.length;
+        updateAll(root);
+    }
+
+    // helper to recompute the earliest end of every node in a subtree
+    private void updateAll(Node node) {
+        if (node == null) return;
+        updateAll(node.left);
+        updateAll(node.right);
+        update(node);
+    }
+
+    /**
+     * Removes an event from the tree, the start time must be the one it was added with.
+     * @param id id of the event
+     * @param start start time of the event in milliseconds
+     * @return true if the event was in the tree, else false
+     */
+    public boolean remove(String id, long start) {
+        int before = size;
+        root = delete(root, id, start);
+        return size < before;
+    }
+
+    /**
+     * Gets the events which start after the start of the period and end before the end of the period. Every event
+     * starting in the period may be looked at, not only the ones found.
+     * @param from start of the period in milliseconds
+     * @param to end of the period in milliseconds
+     * @return ids of the events inside the period, sorted by start time
+     */
+    public List<String> inside(long from, long to) {
+        List<String> result = new ArrayList<>();
+        inside(root, from, to, result);
+        return result;
+    }
+
+    // helper to find the events inside the period in a subtree, the left side only holds earlier starts and the
+    // right side later ones, so a side is skipped when its starts are all outside the period
+    private void inside(Node node, long from, long to, List<String> result) {
+        if (node == null || node.minEnd >= to) return;
+        if (node.start > from) inside(node.left, from, to, result);
+        if (node.start > from && node.start < to && node.end < to) result.add(node.id);
+        if (node.start < to) inside(node.right, from, to, result);
+    }
+
+    // helper to compare the key of a node with a start time and an id
+    private static int compare(Node node, long start, String id) {
+        int order = Long.compare(node.start, start);
+        return order != 0 ? order : node.id.compareTo(id);
+    }
+
+    // helper to insert a node into a subtree, returns the new root of the subtree
+    private Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(node, added.start, added.id) > 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        return update(node);
+    }
+
+    // helper to delete a node from a subtree, returns the new root of the subtree
+    private Node delete(Node node, String id, long start) {
+        if (node == null) return null;
+        int order = compare(node, start, id);
+        if (order > 0) {
+            node.left = delete(node.left, id, start);
+        } else if (order < 0) {
+            node.right = delete(node.right, id, start);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+
+    // helper to join two subtrees where every key of the left one is smaller
+    private Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    // helper to rotate a subtree to the right
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = update(node);
+        return left;
+    }
+
+    // helper to rotate a subtree to the left
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = update(node);
+        return right;
+    }
+
+    // helper to recompute the earliest end of a subtree from its children
+    private Node update(Node node) {
+        node.minEnd = node.end;
+        if (node.left != null) node.minEnd = Math.min(node.minEnd, node.left.minEnd);
+        if (node.right != null) node.minEnd = Math.min(node.minEnd, node.right.minEnd);
+        return node;
+    }
+}
@@ -0,0 +1,119 @@
+package event;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * A benchmark of the event queries which give events in start time order: by time, by room and by speaker.
+ * Each query is timed on the event manager and on a copy of how the queries worked before, which filtered every
+ * event and then sorted the result with a selection sort. The copy is quadratic, so it only runs for up to 10000
+ * events.
+ * Each query is run for some rounds to warm up before it is timed, the first of them also builds the indexes of the
+ * event manager, and the average of the timed rounds is printed. The copy takes seconds a round, so it runs for less
+ * rounds.
+ * Run it with the numbers of events, 10000 and 100000 by default. The talks start at random minutes over about two
+ * years and are spread over 50 rooms and 200 speakers.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class ScheduleBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 20;
+    private static final int SORTED_WARMUP = 2;
+    private static final int SORTED_RUNS = 3;
+    private static final int SORTED_LIMIT = 10000;
+    private static final long MINUTE = 60000L;
+
+    /**
+     * Runs the benchmark and prints the average time of a round of the three queries.
+     * @param args the numbers of events, optional
+     */
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{10000, 100000} : Arrays.stream(args).mapToInt(Integer::parseInt)
+                .toArray();
+        for (int size : sizes) {
+            EventManager em = new EventManager();
+            Map<String, String> rooms = new HashMap<>();
+            Random random = new Random(1);
+            long base = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+            for (int i = 0; i < size; i++) {
+                long start = base + random.nextInt(1000000) * MINUTE;
+                String id = em.createEvent("Talk", "talk" + i, new Timestamp(start), new Timestamp(start + 60 * MINUTE),
+                        "R" + (i % 50), "", 10, Collections.singletonList("s" + (i % 200)));
+                rooms.put(id, "R" + (i % 50));
+            }
+            Timestamp from = new Timestamp(base);
+            Timestamp until = new Timestamp(base + 1000001 * MINUTE);
+            measure(size + " events, event manager", WARMUP, RUNS, () -> em.getEventsByTime(from, until).size()
+                    + em.getEventByLocation("R1").size() + em.getEventBySpeaker("s1").size());
+            if (size > SORTED_LIMIT) continue;
+            measure(size + " events, filter and sort", SORTED_WARMUP, SORTED_RUNS, () -> sortedByTime(em,
+                    rooms.keySet(), from, until).size() + sortedByRoom(em, rooms, "R1").size()
+                    + sortedBySpeaker(em, rooms.keySet(), "s1").size());
+        }
+    }
+
+    // helper to time a round of queries after some rounds to warm up, with a collection before timing so the garbage
+    // of the rounds before is not collected while timing, the number of events found is printed so it is not skipped
+    private static void measure(String label, int warmup, int runs, IntSupplier round) {
+        for (int i = 0; i < warmup; i++) {
+            round.getAsInt();
+        }
+        System.gc();
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            found += round.getAsInt();
+        }
+        System.out.printf("%s: %.2f ms, %d found%n", label, (System.nanoTime() - start) / 1e6 / runs, found / runs);
+    }
+
+    // helper to find the events inside the given times the way it was done before
+    private static List<String> sortedByTime(EventManager em, Set<String> ids, Timestamp from, Timestamp until) {
+        List<String> result = new ArrayList<>();
+        for (String id : ids) {
+            if (em.getStartTime(id).after(from) && em.getEndTime(id).before(until)) result.add(id);
+        }
+        return selectionSort(em, result);
+    }
+
+    // helper to find the events in the given room the way it was done before
+    private static List<String> sortedByRoom(EventManager em, Map<String, String> rooms, String room) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, String> entry : rooms.entrySet()) {
+            if (entry.getValue().equalsIgnoreCase(room)) result.add(entry.getKey());
+        }
+        return selectionSort(em, result);
+    }
+
+    // helper to find the events of the given speaker the way it was done before
+    private static List<String> sortedBySpeaker(EventManager em, Set<String> ids, String speaker) {
+        List<String> result = new ArrayList<>();
+        for (String id : ids) {
+            if (em.getHosts(id).contains(speaker)) result.add(id);
+        }
+        return selectionSort(em, result);
+    }
+
+    // helper which sorts by start time the way startTimeSort did, picking the earliest remaining event every time
+    private static List<String> selectionSort(EventManager em, List<String> events) {
+        List<String> result = new ArrayList<>();
+        while (!events.isEmpty()) {
+            String pivot = events.get(0);
+            Timestamp time = em.getStartTime(pivot);
+            for (String event : events) {
+                if (em.getStartTime(event).before(time)) {
+                    time = em.getStartTime(event);
+                    pivot = event;
+                } else if (em.getStartTime(event).equals(time) && pivot.compareTo(event) < 0) {
+                    pivot = event;
+                }
+            }
+            result.add(pivot);
+            events.remove(pivot);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,231 @@
+package event;
+
+import account.AccountManager;
+import message.MessagingManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A use case class which signs users up for events and drops them, shared by every session of the conference.
+ * A signup changes both the event, which gets a new attendee, and the account of the user, which books the time of the
+ * event, so it is done here as one step: either both change or neither does, and an event never gets more attendees
+ * than its capacity.
+ * It may be called from many threads. Each event and each user is guarded by one of a fixed number of locks picked by
+ * its hash, which keeps the steps of one signup together without locking out signups for other events and users. The
+ * lock of the event is always taken before the lock of the user, so two signups never wait for each other forever.
+ * The event manager and the messaging manager still run one call at a time, so how much signups gain from running
+ * at once has not been measured on more than one core.
+ * When an event is full, users can wait for a place instead. Whenever a place opens, because an attendee drops or the
+ * capacity is raised, the user who has waited the longest and is still free at that time is signed up and told so by
+ * a message. When an event is cancelled, its attendees and the users on its waitlist are all told so by a message.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SignupService {
+    private static final int STRIPES = 64;
+
+    private final EventManager events;
+    private final AccountManager accounts;
+    private final MessagingManager messages;
+    private final ReentrantLock[] eventLocks = new ReentrantLock[STRIPES];
+    private final ReentrantLock[] userLocks = new ReentrantLock[STRIPES];
+
+    /**
+     * Creates a signup service over the given events and accounts.
+     * @param events the event manager of the conference
+     * @param accounts the account manager of the conference
+     * @param messages the messaging manager of the conference, used to tell users they got a place
+     */
+    public SignupService(EventManager events, AccountManager accounts, MessagingManager messages) {
+        this.events = events;
+        this.accounts = accounts;
+        this.messages = messages;
+        for (int i = 0; i < STRIPES; i++) {
+            eventLocks[i] = new ReentrantLock();
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Signs a user up for an event. The user is added as an attendee of the event and the event is booked in the
+     * account of the user.
+     * @param username the username of the user
+     * @param eventID id of the event
+     * @return true if signed up, false if the event or the user does not exist, the event is full, the user is already
+     * in the event or the user is not free at the time of the event
+     */
+    public boolean signUp(String username, String eventID) {
+        ReentrantLock eventLock = lockFor(eventLocks, eventID);
+        ReentrantLock userLock = lockFor(userLocks, username);
+        eventLock.lock();
+        try {
+            userLock.lock();
+            try {
+                Timestamp startTime = events.getStartTime(eventID);
+                Timestamp endTime = events.getEndTime(eventID);
+                if (startTime == null || events.isAttendee(username, eventID) || !events.canSignup(eventID)) {
+                    return false;
+                }
+                if (!accounts.signUpEvent(startTime, endTime, eventID, username)) return false;
+                if (!events.addAttendee(username, eventID)) {
+                    // the event did not take the user after all, so the booking is taken back
+                    accounts.dropEvent(eventID, username);
+                    return false;
+                }
+                return true;
+            } finally {
+                userLock.unlock();
+            }
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a user on the waitlist of a full event, to be signed up when a place opens.
+     * @param username the username of the user
+     * @param eventID id of the event
+     * @return true if the user is now waiting, false if the event does not exist, is not full, the user is already in
+     * the event or waiting, or the user is not free at the time of the event
+     */
+    public boolean joinWaitlist(String username, String eventID) {
+        ReentrantLock eventLock = lockFor(eventLocks, eventID);
+        ReentrantLock userLock = lockFor(userLocks, username);
+        eventLock.lock();
+        try {
+            userLock.lock();
+            try {
+                Timestamp startTime = events.getStartTime(eventID);
+                Timestamp endTime = events.getEndTime(eventID);
+                if (startTime == null || !accounts.freeAtTime(startTime, endTime, username)) return false;
+                return events.joinWaitlist(username, eventID);
+            } finally {
+                userLock.unlock();
+            }
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    /**
+     * Drops a user from an event. The user is removed from the attendees of the event and the booking is removed
+     * from the account of the user, or the user stops waiting if they were on the waitlist. A place opened this way
+     * goes to the next user on the waitlist.
+     * @param username the username of the user
+     * @param eventID id of the event
+     * @return true if dropped, false if the user is neither an attendee of the event, has it booked nor is waiting
+     */
+    public boolean drop(String username, String eventID) {
+        ReentrantLock eventLock = lockFor(eventLocks, eventID);
+        ReentrantLock userLock = lockFor(userLocks, username);
+        eventLock.lock();
+        try {
+            boolean removed;
+            boolean dropped;
+            boolean left;
+            userLock.lock();
+            try {
+                removed = events.removeAttendee(username, eventID);
+                // the booking is dropped even if the user was not an attendee, so the two never disagree
+                dropped = accounts.dropEvent(eventID, username);
+                left = events.leaveWaitlist(username, eventID);
+            } finally {
+                userLock.unlock();
+            }
+            // the lock of the user is let go first, so only one user lock is ever held at a time
+            if (removed) promote(eventID);
+            return removed || dropped || left;
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the capacity of an event. When the capacity is raised, the new places go to the users on the waitlist.
+     * @param eventID id of the event
+     * @param capacity the new capacity
+     */
+    public void changeCapacity(String eventID, int capacity) {
+        ReentrantLock eventLock = lockFor(eventLocks, eventID);
+        eventLock.lock();
+        try {
+            events.setCapacity(eventID, capacity);
+            promote(eventID);
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    /**
+     * Cancels an event. The bookings of its attendees are removed, its waitlist goes away with it, and every attendee
+     * and every waiting user is told by a message that the event is cancelled.
+     * @param eventID id of the event
+     * @return true if cancelled, false if the event does not exist
+     */
+    public boolean cancel(String eventID) {
+        ReentrantLock eventLock = lockFor(eventLocks, eventID);
+        eventLock.lock();
+        try {
+            String name = events.getName(eventID);
+            List<String> attendees = events.getAttendees(eventID);
+            List<String> waiting = events.getWaitlist(eventID);
+            if (attendees == null || !events.cancelEvent(eventID)) return false;
+            for (String username : attendees) {
+                ReentrantLock userLock = lockFor(userLocks, username);
+                userLock.lock();
+                try {
+                    accounts.dropEvent(eventID, username);
+                } finally {
+                    userLock.unlock();
+                }
+                messages.sendNotice(username, "Cancelled: " + name,
+                        name + " (" + eventID + ") has been cancelled and removed from your events.");
+            }
+            for (String username : waiting) {
+                messages.sendNotice(username, "Cancelled: " + name,
+                        name + " (" + eventID + ") has been cancelled, so you were taken off its waitlist.");
+            }
+            return true;
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    // helper to give the open places of an event to the waitlist, the lock of the event must be held
+    private void promote(String eventID) {
+        Timestamp startTime = events.getStartTime(eventID);
+        Timestamp endTime = events.getEndTime(eventID);
+        if (startTime == null) return;
+        String name = events.getName(eventID);
+        while (events.canSignup(eventID)) {
+            String username = events.pollWaitlist(eventID);
+            if (username == null) return;
+            ReentrantLock userLock = lockFor(userLocks, username);
+            userLock.lock();
+            try {
+                if (!accounts.signUpEvent(startTime, endTime, eventID, username)) {
+                    // the user booked something else at that time while waiting
+                    messages.sendNotice(username, "Waitlist for " + name,
+                            "A place opened in " + name + " (" + eventID + "), but you have another event at that "
+                                    + "time, so you were taken off the waitlist.");
+                    continue;
+                }
+                if (!events.addAttendee(username, eventID)) {
+                    accounts.dropEvent(eventID, username);
+                    continue;
+                }
+                messages.sendNotice(username, "Signed up for " + name,
+                        "A place opened in " + name + " (" + eventID + ") and you have been signed up for it.");
+            } finally {
+                userLock.unlock();
+            }
+        }
+    }
+
+    // helper to pick the lock of a name
+    private ReentrantLock lockFor(ReentrantLock[] locks, String name) {
+        return locks[(name.hashCode() & 0x7FFFFFFF) % STRIPES];
+    }
+}
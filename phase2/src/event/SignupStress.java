@@ -0,0 +1,103 @@
+package event;
+
+import account.AccountManager;
+import data.MemoryStorage;
+import message.MessagingManager;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A stress run of the signup service. Threads sign random users up for random events, join waitlists and drop events
+ * all at once, then every event and every account is checked: no event may have more attendees than its capacity,
+ * and every attendee of an event must have it booked, and the other way round.
+ * Run it with the numbers of threads, 1, 2, 4 and 8 by default. There are 200 events of capacity 50 and 4000 users,
+ * the events do not overlap so any user can be in any number of them. The messages sent to promoted users are kept in
+ * memory, nothing is written to the data folder.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SignupStress {
+
+    private static final int EVENTS = 200;
+    private static final int USERS = 4000;
+    private static final int CAPACITY = 50;
+    private static final int OPERATIONS = 200000;
+    private static final long HOUR = 3600000L;
+
+    /**
+     * Runs the stress run once for each number of threads and prints the time and the problems found.
+     * @param args the numbers of threads, optional
+     * @throws Exception if a thread fails
+     */
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = args.length == 0 ? new int[]{1, 2, 4, 8} : Arrays.stream(args)
+                .mapToInt(Integer::parseInt).toArray();
+        boolean failed = false;
+        for (int threads : threadCounts) {
+            EventManager em = new EventManager();
+            AccountManager am = new AccountManager();
+            List<String> ids = new ArrayList<>();
+            long base = Timestamp.valueOf("2021-01-01 00:00:00").getTime();
+            for (int i = 0; i < EVENTS; i++) {
+                long start = base + i * 2 * HOUR;
+                ids.add(em.createEvent("Party", "party" + i, new Timestamp(start), new Timestamp(start + HOUR),
+                        "R" + i, "", CAPACITY, new ArrayList<>()));
+            }
+            List<String> types = new ArrayList<>();
+            List<String> usernames = new ArrayList<>();
+            List<String> passwords = new ArrayList<>();
+            for (int u = 0; u < USERS; u++) {
+                types.add("attendee");
+                usernames.add("user" + u);
+                passwords.add("Passw0rd!");
+            }
+            am.addAccounts(types, usernames, passwords);
+            SignupService signups = new SignupService(em, am, new MessagingManager(new MemoryStorage()));
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> runs = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                runs.add(executor.submit(() -> {
+                    for (int k = 0; k < OPERATIONS / threads; k++) {
+                        String user = "user" + random.nextInt(USERS);
+                        String event = ids.get(random.nextInt(EVENTS));
+                        int pick = random.nextInt(8);
+                        if (pick < 2) signups.drop(user, event);
+                        else if (!signups.signUp(user, event) && pick == 2) signups.joinWaitlist(user, event);
+                    }
+                }));
+            }
+            for (Future<?> run : runs) run.get();
+            executor.shutdown();
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            int attendees = 0;
+            int booked = 0;
+            int problems = 0;
+            for (String event : ids) {
+                List<String> attending = em.getAttendees(event);
+                attendees += attending.size();
+                if (attending.size() > CAPACITY) problems++;
+                for (String user : attending) {
+                    if (!am.viewSignedUpEvents(user).containsKey(event)) problems++;
+                }
+            }
+            for (String user : usernames) {
+                for (String event : am.viewSignedUpEvents(user).keySet()) {
+                    booked++;
+                    if (!em.isAttendee(user, event)) problems++;
+                }
+            }
+            failed |= problems > 0;
+            System.out.printf("%d threads: %d ms, %d attendees, %d bookings, %d problems%n", threads, millis,
+                    attendees, booked, problems);
+        }
+        System.out.println(failed ? "failed" : "passed");
+    }
+}
@@ -1,14 +1,23 @@
 package message;
 
+import data.AppendFile;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class is an entity class of messaging feature.
  * This is an abstract class of methods, all different kinds of methods extends this class.
  * All the constructed messages are already sent by its sender.
  * For most of the attributes in this class there is no setter method because the sent message should not be changed.
+ * The body of the message is kept in a body file, the message only keeps its position and length in that file.
  * @author Group0065
  * @version 1.0.0
  */
@@ -17,6 +26,9 @@ abstract class Message implements Serializable {
     private List<String> receiverUsername;
     private Integer order;//unique
     private Boolean read;
+    private transient AppendFile bodies;
+    private long bodyPosition;
+    private int bodyLength;
 
     /**
      * create a message with one sender and a list of receivers, and the
@@ -105,4 +117,152 @@ abstract class Message implements Serializable {
     protected boolean getRead(){
         return this.read;
     }
+
+    /**
+     * Appends the body of this message to the given body file and keeps where it is.
+     * @param bodies the body file
+     * @param body the bytes of the body
+     */
+    protected void storeBody(AppendFile bodies, byte[] body) {
+        try {
+            this.bodies = bodies;
+            bodyPosition = bodies.append(body);
+            bodyLength = body.length;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to store the body of message " + order, ex);
+        }
+    }
+
+    /**
+     * Uses the body already at the given position of the given body file if it is the same as the given body, for
+     * example when the sending of this message is replayed from a journal. Nothing is appended either way.
+     * @param bodies the body file
+     * @param position the position the body was appended at when the message was first sent
+     * @param body the bytes of the body
+     * @return true if the body at the position is the same and is used, false if it is not there
+     */
+    protected boolean reuseBody(AppendFile bodies, long position, byte[] body) {
+        if (position < bodies.getStart() || position + body.length > bodies.getEnd()) return false;
+        try {
+            if (!Arrays.equals(bodies.read(position, body.length), body)) return false;
+        } catch (IOException ex) {
+            return false;
+        }
+        this.bodies = bodies;
+        bodyPosition = position;
+        bodyLength = body.length;
+        return true;
+    }
+
+    /**
+     * Gets the position of the body of this message in the body file.
+     * @return the position of the body
+     */
+    protected long getBodyPosition() {
+        return bodyPosition;
+    }
+
+    /**
+     * Uses the body already stored for the other message, the copies of one message share a body.
+     * @param other the message which has the same body
+     */
+    protected void shareBody(Message other) {
+        bodies = other.bodies;
+        bodyPosition = other.bodyPosition;
+        bodyLength = other.bodyLength;
+    }
+
+    /**
+     * Reads the body of this message from the body file.
+     * @return the bytes of the body
+     */
+    protected byte[] readBody() {
+        try {
+            return bodies.read(bodyPosition, bodyLength);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read the body of message " + order, ex);
+        }
+    }
+
+    /**
+     * Makes a new copy of this message with the same body, which is not read yet.
+     * @return the copy of this message
+     */
+    protected abstract Message copy();
+
+    /**
+     * Writes this message in the compact binary form: sender, receivers, message ID, read state, and the position
+     * and length of the body in the body file.
+     * @param writer the writer of the ser file
+     * @throws IOException if unable to write
+     */
+    protected void writeTo(SnapshotWriter writer) throws IOException {
+        writeTo(writer, bodyPosition);
+    }
+
+    /**
+     * Writes this message like writeTo, with its body copied to another body file. A body shared by the copies of a
+     * message is only copied once.
+     * @param writer the writer of the ser file
+     * @param target the body file to copy the body to
+     * @param copied the position in the target of every body already copied, by its position in this body file
+     * @throws IOException if unable to read, copy or write
+     */
+    protected void writeTo(SnapshotWriter writer, AppendFile target, Map<Long, Long> copied) throws IOException {
+        Long position = copied.get(bodyPosition);
+        if (position == null) {
+            position = target.append(readBody());
+            copied.put(bodyPosition, position);
+        }
+        writeTo(writer, position);
+    }
+
+    // helper for writeTo, writes this message with its body at the given position
+    private void writeTo(SnapshotWriter writer, long position) throws IOException {
+        writer.writeName(senderUsername);
+        writer.writeNames(receiverUsername);
+        writer.writeCount(order);
+        writer.writeBoolean(read);
+        writer.writePosition(position);
+        writer.writeCount(bodyLength);
+    }
+
+    /**
+     * Reads a message written by writeTo. Messages written before the body file, which have their subject and
+     * content instead, are read as well. The body of such a message is appended to the body file the first time its
+     * order is read, the copies of it read afterwards share that body.
+     * @param reader the reader of the ser file
+     * @param bodies the body file
+     * @param inBodyFile true if the body of the message is in the body file, false if its subject and content follow
+     * @param appended the messages read before whose bodies were appended, by their order, not used if inBodyFile
+     * @return the message read
+     * @throws IOException if unable to read
+     */
+    protected static Message readFrom(SnapshotReader reader, AppendFile bodies, boolean inBodyFile,
+                                      Map<Integer, Message> appended) throws IOException {
+        String sender = reader.readName();
+        List<String> receivers = reader.readNames();
+        Integer order = reader.readCount();
+        boolean read = reader.readBoolean();
+        Message message;
+        if (inBodyFile) {
+            message = new WordMessage(sender, receivers, order);
+            message.bodies = bodies;
+            message.bodyPosition = reader.readPosition();
+            message.bodyLength = reader.readCount();
+        } else {
+            String subject = reader.readText();
+            String content = reader.readText();
+            Message original = appended.get(order);
+            if (original == null) {
+                message = new WordMessage(sender, receivers, subject, content, order, bodies);
+                appended.put(order, message);
+            } else {
+                message = new WordMessage(sender, receivers, order);
+                message.shareBody(original);
+            }
+        }
+        message.read = read;
+        return message;
+    }
 }
@@ -1,13 +1,23 @@
 package message;
 
-import com.sun.xml.internal.bind.v2.TODO;
-import sun.security.krb5.internal.crypto.Aes128;
-
-import java.io.Serializable;
+import data.AppendFile;
+import data.FileStorage;
+import data.SegmentFile;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.Storage;
+import data.StorageInputStream;
+import data.StorageOutputStream;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.*;
 import java.util.List;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -17,18 +27,307 @@ import java.util.Map;
  * Methods in this class contains get messages with given sender and receiver, get all sent or received messages of user,
  * and send message with given information.
  * Input information is given by MessageSystem.
+ * It is saved in a compact binary form, written and read by writeExternal and readExternal.
+ * The mailbox and the outbox of every user are kept in a separate segment of a mailbox file, and are only read from it
+ * when the user's messages are first asked for, so reading the messages does not depend on how many there are.
+ * Subjects and contents are kept in a body file, a message only keeps where its body is. A body is appended when the
+ * message is first sent, the journal keeps its position so replaying the sending uses the same body. The body file
+ * only grows: the bodies of deleted messages are left in it, so it is about as large as every message ever sent.
+ * The mailbox files and the body file are kept by the storage the messages are read from and saved in, the files in
+ * the data folder by default.
+ * Every method which reads or changes the messages holds the lock of the manager, including reading a mailbox the
+ * first time it is asked for, so sessions and the notices of SignupService may call it from many threads. The calls
+ * run one at a time.
  * @author Group0065
  * @version 1.0.0
  */
-public class MessagingManager implements Serializable {
+public class MessagingManager implements Externalizable {
+    private static final long serialVersionUID = 8874547225356779751L;
+    private static final int SNAPSHOT_VERSION = 4;
+    private static final String MAILBOX_PREFIX = "MessageMailboxes-";
+    private static final String RECEIVED = "R";
+    private static final String SENT = "S";
+    private static final String BODY_FILE = "MessageBodies.dat";
+    private static final String NOTICE_SENDER = "Conference";
     private Map<String, List<Message>> receiverMap = new HashMap<>();//key is the receiver
     private Map<String, List<Message>> senderMap = new HashMap<>();//key is sender
     private Integer totalNumber;
     // username map a list of message sent
     //TODO: Change the messageMap into a list of message received.
+    // Observers are told about every mutation, they are not saved with the messages
+    private transient PropertyChangeSupport observers;
+    // number of changes made since the messages were read, it is not saved
+    private transient long version;
+    // mailboxes and outboxes which are not in receiverMap or senderMap yet, null if there is no mailbox file
+    private transient SegmentFile mailboxes;
+    // version of the messages in the mailbox file, the mailboxes of older versions are written again when saving
+    private transient int mailboxVersion;
+    private transient AppendFile bodies;
+    // the storage which keeps the mailbox files and the body file
+    private transient Storage storage;
+    // true if the messages were read from a ser file of the first version and their bodies were appended
+    private transient boolean appendedBodies;
 
     public MessagingManager(){
+        this(FileStorage.getDefault());
+    }
+
+    /**
+     * Creates a messaging manager with no messages, which keeps its mailbox files and body file in the given storage.
+     * @param storage the storage of the messages
+     */
+    public MessagingManager(Storage storage){
         totalNumber = 0;
+        this.storage = storage;
+    }
+
+    /**
+     * Adds an observer which is notified after every change to the messages. The name of the property is the name
+     * of the operation and the new value is the array of its arguments.
+     * @param observer the observer to add
+     */
+    public synchronized void addObserver(PropertyChangeListener observer) {
+        if (observers == null) observers = new PropertyChangeSupport(this);
+        observers.addPropertyChangeListener(observer);
+    }
+
+    /**
+     * Removes an observer added before, so it is no longer notified about changes to the messages.
+     * @param observer the observer to remove
+     */
+    public synchronized void removeObserver(PropertyChangeListener observer) {
+        if (observers != null) observers.removePropertyChangeListener(observer);
+    }
+
+    /**
+     * Writes all messages in the compact binary form: the total number of messages, then the name of a new mailbox
+     * file which has the mailbox and the outbox of every user. The mailbox file is written into the storage the
+     * messages are saved in. The mailboxes which were never read are copied from the old mailbox file without reading
+     * them, unless the messages are saved in another storage, in which case their bodies are copied to the body file
+     * of that storage as well. The body file is forced first, so the messages written never refer to a body which is
+     * not on the disk.
+     * @param out the output of the ser file
+     * @throws IOException if unable to write
+     */
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        Storage target = StorageOutputStream.storageOf(out);
+        getBodies().force();
+        SnapshotWriter writer = new SnapshotWriter(out);
+        writer.writeCount(SNAPSHOT_VERSION);
+        writer.writeCount(totalNumber);
+        try (SegmentFile.Writer mailboxWriter = new SegmentFile.Writer(target, MAILBOX_PREFIX)) {
+            AppendFile targetBodies = target == storage ? null : target.openFile(BODY_FILE);
+            Map<Long, Long> copied = new HashMap<>();
+            writeSegments(mailboxWriter, RECEIVED, receiverMap, targetBodies, copied);
+            writeSegments(mailboxWriter, SENT, senderMap, targetBodies, copied);
+            if (targetBodies != null) targetBodies.force();
+            writer.writeText(mailboxWriter.finish().getName());
+        }
+    }
+
+    /**
+     * Reads the messages written by writeExternal from the storage they are saved in. Only the index of the mailbox
+     * file is read, a mailbox is read when it is first asked for. Messages written by the first three versions are all
+     * read at once.
+     * @param in the input of the ser file
+     * @throws IOException if unable to read or the ser file is written by a newer version
+     */
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException {
+        SnapshotReader reader = new SnapshotReader(in);
+        int version = reader.readCount();
+        if (version > SNAPSHOT_VERSION) throw new InvalidClassException("Unknown message data version " + version);
+        storage = StorageInputStream.storageOf(in);
+        totalNumber = reader.readCount();
+        mailboxVersion = version;
+        if (version == 1) {
+            Map<Integer, Message> appended = new HashMap<>();
+            readMessageMap(reader, receiverMap, appended);
+            readMessageMap(reader, senderMap, appended);
+            appendedBodies = !appended.isEmpty();
+            return;
+        }
+        String mailboxName = reader.readText();
+        if (mailboxName == null) return;
+        if (version <= 3) {
+            readOldMailboxes(mailboxName, version);
+            return;
+        }
+        mailboxes = SegmentFile.open(storage, mailboxName);
+    }
+
+    // helper for readExternal, versions 2 and 3 wrote the mailbox file straight into the data folder in the layout of
+    // SegmentFile.readOldLayout, so every mailbox is read from it at once. Version 2 kept the bodies in the mailboxes,
+    // they are appended to the body file, version 3 kept them in the body file of the data folder.
+    private void readOldMailboxes(String mailboxName, int version) throws IOException {
+        FileStorage dataFolder = FileStorage.getDefault();
+        if (version == 3 && storage != dataFolder) {
+            throw new InvalidClassException("Message data version 3 can only be read from the data folder");
+        }
+        Map<Integer, Message> appended = new HashMap<>();
+        Map<String, byte[]> segments = SegmentFile.readOldLayout(dataFolder.getPath(mailboxName));
+        for (Map.Entry<String, byte[]> segment : segments.entrySet()) {
+            String key = segment.getKey();
+            Map<String, List<Message>> messageMap = key.startsWith(RECEIVED) ? receiverMap : senderMap;
+            messageMap.put(key.substring(1), readSegment(segment.getValue(), version == 3, appended));
+        }
+        appendedBodies = !appended.isEmpty();
+    }
+
+    /**
+     * Checks whether reading these messages appended their bodies to the body file, which happens every time a ser
+     * file written before the body file is read. Such a ser file should be saved again in the current form as soon as
+     * it is read.
+     * @return true if bodies were appended when reading, else false
+     */
+    public synchronized boolean hasAppendedBodies() {
+        return appendedBodies;
+    }
+
+    /**
+     * Deletes the mailbox files in the storage of these messages which were written before the one they are read
+     * from. Checkpoints leave them behind, so this should only be called for the messages used by the users when they
+     * are read.
+     */
+    public synchronized void deleteOldMailboxes() {
+        if (mailboxes == null) return;
+        for (String name : storage.list(MAILBOX_PREFIX)) {
+            if (name.compareTo(mailboxes.getName()) < 0) storage.delete(name);
+        }
+    }
+
+    // helper for writeExternal, the lists never read are copied from the old mailbox file, the bodies are copied to
+    // the target body file if there is one
+    private void writeSegments(SegmentFile.Writer mailboxWriter, String prefix, Map<String, List<Message>> messageMap,
+                               AppendFile targetBodies, Map<Long, Long> copied) throws IOException {
+        for (Map.Entry<String, List<Message>> user : messageMap.entrySet()) {
+            mailboxWriter.add(prefix + user.getKey(), writeSegment(user.getValue(), targetBodies, copied));
+        }
+        if (mailboxes == null) return;
+        for (String key : mailboxes.keys()) {
+            if (key.startsWith(prefix) && !messageMap.containsKey(key.substring(prefix.length()))) {
+                byte[] segment = mailboxes.read(key);
+                if (mailboxVersion != SNAPSHOT_VERSION || targetBodies != null) {
+                    segment = writeSegment(readSegment(segment), targetBodies, copied);
+                }
+                mailboxWriter.add(key, segment);
+            }
+        }
+    }
+
+    // helper for writeSegments, each segment has its own string table so it can be read alone
+    private byte[] writeSegment(List<Message> messages, AppendFile targetBodies, Map<Long, Long> copied)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        SnapshotWriter writer = new SnapshotWriter(output);
+        writer.writeCount(messages == null ? 0 : messages.size());
+        if (messages != null) {
+            for (Message message : messages) {
+                if (targetBodies == null) {
+                    message.writeTo(writer);
+                } else {
+                    message.writeTo(writer, targetBodies, copied);
+                }
+            }
+        }
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    // helper to read a segment written by writeSegment
+    private List<Message> readSegment(byte[] segment) throws IOException {
+        return readSegment(segment, true, null);
+    }
+
+    // helper to read a segment whose bodies are in the body file, or in the segment as in version 2, in which case a
+    // body is appended once for all the mailboxes which have the message
+    private List<Message> readSegment(byte[] segment, boolean inBodyFile, Map<Integer, Message> appended)
+            throws IOException {
+        SnapshotReader reader = new SnapshotReader(new DataInputStream(new ByteArrayInputStream(segment)));
+        int size = reader.readCount();
+        List<Message> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(Message.readFrom(reader, getBodies(), inBodyFile, appended));
+        }
+        return messages;
+    }
+
+    // helper for readExternal, reads the messages written by the first version, a message is in the map of its
+    // sender and of each receiver but its body is only appended once
+    private void readMessageMap(SnapshotReader reader, Map<String, List<Message>> messageMap,
+                                Map<Integer, Message> appended) throws IOException {
+        int users = reader.readCount();
+        for (int i = 0; i < users; i++) {
+            String username = reader.readName();
+            int size = reader.readCount();
+            List<Message> messages = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                messages.add(Message.readFrom(reader, getBodies(), false, appended));
+            }
+            messageMap.put(username, messages);
+        }
+    }
+
+    // helper to get the body file, it is opened the first time a body is stored or read
+    private AppendFile getBodies() {
+        if (bodies == null) {
+            try {
+                bodies = storage.openFile(BODY_FILE);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to open the message bodies", ex);
+            }
+        }
+        return bodies;
+    }
+
+    // helper to notify the observers about a change
+    private void notifyObservers(String operation, Object... args) {
+        version++;
+        if (observers != null) observers.firePropertyChange(operation, null, args);
+    }
+
+    /**
+     * Gets the modification version of the messages, which goes up by one with every change, so the messages only need to be
+     * saved when it is not the same as when they were last saved.
+     * @return the modification version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies a change recorded by an observer again, used to restore the messages from a journal.
+     * @param operation the name of the operation
+     * @param args the arguments of the operation
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void applyRecord(String operation, Object[] args) {
+        switch (operation) {
+            case "sendWordMessage":
+                // records written before the position of the body was journaled have four arguments
+                sendWordMessage((String) args[0], (List<String>) args[1], (String) args[2], (String) args[3],
+                        args.length > 4 ? (Long) args[4] : null);
+                break;
+            case "markAsRead":
+                markAsRead((List<Integer>) args[0], (String) args[1]);
+                break;
+            case "markAsUnread":
+                markAsUnread((Integer) args[0], (String) args[1]);
+                break;
+            case "deleteReceivedMessage":
+                deleteReceivedMessage((Integer) args[0], (String) args[1]);
+                break;
+            case "deleteSentMessage":
+                deleteSentMessage((Integer) args[0], (String) args[1]);
+                break;
+            case "adminDeleteMessage":
+                adminDeleteMessage((Integer) args[0]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown message operation: " + operation);
+        }
     }
 
     /**
@@ -39,7 +338,7 @@ public class MessagingManager implements Serializable {
      * @param username the username of the user that we want to check its sent message
      * @return a list of toString of messages those are all sent by the user with given username in sender's view
      */
-    protected List<String> getSentMessages(String username) {
+    protected synchronized List<String> getSentMessages(String username) {
         List<Message> messageList = getSentMessagesHelper(username);
         List<Message> sorted = sortMessages(messageList);
         return getSentToString(sorted);
@@ -49,53 +348,78 @@ public class MessagingManager implements Serializable {
 
 
     private List<Message> getSentMessagesHelper(String username) {
-        List<Message> lst = new ArrayList<>();
-        for(String sender: senderMap.keySet()){
-            if(sender.equals(username)){
-                if(senderMap.get(sender) == null || senderMap.get(sender).isEmpty()){
-                    return null;
-                }
-                lst = new ArrayList<>(senderMap.get(sender));
-            }
-        }
-        if(lst.isEmpty()){
+        List<Message> outbox = getOutbox(username);
+        if(outbox == null || outbox.isEmpty()){
             return null;
         }
-        return lst;
+        return new ArrayList<>(outbox);
     }
 
     //a helper to get all received messages from certain receiver
     private List<Message> getReceivedMessagesHelper(String receiver) {
-        List<Message> lst = new ArrayList<>();
-        for (String username: receiverMap.keySet()) {
-            if (username.equals(receiver)) {
-                if(receiverMap.get(receiver) == null || receiverMap.get(receiver).isEmpty()){
-                    return null;
-                }
-                lst = new ArrayList<>(receiverMap.get(receiver));
-            }
-
-        }
-        if(lst.isEmpty()){
+        List<Message> mailbox = getMailbox(receiver);
+        if(mailbox == null || mailbox.isEmpty()){
             return null;
         }
-        return lst;
+        return new ArrayList<>(mailbox);
+    }
+
+    //a helper to get the mailbox of given user, it is read from the mailbox file the first time it is asked for
+    private List<Message> getMailbox(String username){
+        return loadMessages(receiverMap, RECEIVED, username);
+    }
 
+    //a helper to get the outbox of given user, it is read from the mailbox file the first time it is asked for
+    private List<Message> getOutbox(String username){
+        return loadMessages(senderMap, SENT, username);
     }
 
-    //a helper to print toString of messages in given list for receiver
-    private List<String> getReceivedToString(List<Message> messageList){
+    //a helper for getMailbox and getOutbox, keeps the messages read in the given map
+    private List<Message> loadMessages(Map<String, List<Message>> messageMap, String prefix, String username){
+        if(messageMap.containsKey(username) || mailboxes == null || !mailboxes.contains(prefix + username)){
+            return messageMap.get(username);
+        }
+        try {
+            List<Message> messages = readSegment(mailboxes.read(prefix + username));
+            messageMap.put(username, messages);
+            return messages;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read the messages of " + username, ex);
+        }
+    }
+
+    //a helper to print toString of messages in given list for receiver, and mark them as read
+    private List<String> getReceivedToString(List<Message> messageList, String receiver){
         if(messageList == null || messageList.isEmpty()){
             return null;
         }
         List<String> result = new ArrayList<>();
+        List<Integer> newlyRead = new ArrayList<>();
         for(Message message: messageList){
             result.add(message.toStringReceived());
-            message.markedRead();
+            if(!message.getRead()){
+                message.markedRead();
+                newlyRead.add(message.getOrder());
+            }
+        }
+        if(!newlyRead.isEmpty()){
+            notifyObservers("markAsRead", newlyRead, receiver);
         }
         return result;
     }
 
+    //a helper to mark the received messages of given user with given message IDs as read
+    private void markAsRead(List<Integer> orders, String currUsername){
+        if(getMailbox(currUsername) == null){
+            return;
+        }
+        for(Message message: receiverMap.get(currUsername)){
+            if(orders.contains(message.getOrder())){
+                message.markedRead();
+            }
+        }
+    }
+
     //a helper to print toString of messages in given list for sent
     private List<String> getSentToString(List<Message> messageList){
         if(messageList == null || messageList.isEmpty()){
@@ -158,7 +482,7 @@ public class MessagingManager implements Serializable {
      */
     // This method will be used when we have stronger search functions. For phase we want to keep the menu small
     // and simple.
-    protected List<String> getSentMessageToSpecificAccount(String sender, String receiver) {
+    protected synchronized List<String> getSentMessageToSpecificAccount(String sender, String receiver) {
         List<Message> messageList = getMessagesToSpecificAccount(sender, receiver);
         List<Message> sorted = sortMessages(messageList);
         return getSentToString(sorted);
@@ -201,10 +525,10 @@ public class MessagingManager implements Serializable {
      * @param sender   the username of sender user
      * @return list of toString of all messages that are sent from sender user to current user in receiver's view
      */
-    protected List<String> getReceivedMessagesFromSpecificAccount(String sender, String receiver) {
+    protected synchronized List<String> getReceivedMessagesFromSpecificAccount(String sender, String receiver) {
         List<Message> messageList = getMessagesFromSpecificAccount(sender, receiver);
         List<Message> sorted = sortMessages(messageList);
-        return getReceivedToString(sorted);
+        return getReceivedToString(sorted, receiver);
 
     }
 
@@ -216,10 +540,10 @@ public class MessagingManager implements Serializable {
      * @param currUsername the username of user we want to find all messages received by
      * @return list of toString of messages that have the user with given username to be one of its receivers
      */
-    protected List<String> getReceivedMessages(String currUsername) {
+    protected synchronized List<String> getReceivedMessages(String currUsername) {
         List<Message> messageList = getReceivedMessagesHelper(currUsername);
         List<Message> sorted = sortMessages(messageList);
-        return getReceivedToString(sorted);
+        return getReceivedToString(sorted, currUsername);
     }
 
 
@@ -234,13 +558,22 @@ public class MessagingManager implements Serializable {
      * @param subject        the subject of the WordMessage want to send
      * @param content        the content of the WordMessage want to send
      */
-    protected void sendWordMessage(String senderUsername, List<String> receivers, String subject, String content) {
+    protected synchronized void sendWordMessage(String senderUsername, List<String> receivers, String subject,
+                                                String content) {
         // List of receivers will require AccountManager, either check username exist or get a list of Speaker
         // In controller level, you SHOULD check all username when you ask user to input receiver username
-        
+        sendWordMessage(senderUsername, receivers, subject, content, null);
+    }
+
+    // helper for sendWordMessage and applyRecord, the body is only appended if it is not already at the given position
+    private void sendWordMessage(String senderUsername, List<String> receivers, String subject, String content,
+                                 Long bodyPosition) {
+        // the body is stored once, every copy of the message shares it
+        Message newMessageForSender = new WordMessage(senderUsername, receivers, subject, content, totalNumber,
+                getBodies(), bodyPosition);
         for (String receiver : receivers) {
-            Message newMessage = new WordMessage(senderUsername, receivers, subject, content, totalNumber);
-            if (!receiverMap.containsKey(receiver)) {
+            Message newMessage = newMessageForSender.copy();
+            if (getMailbox(receiver) == null) {
                 List<Message> messages = new ArrayList<>();
                 messages.add(newMessage);
                 receiverMap.put(receiver, messages);
@@ -250,8 +583,7 @@ public class MessagingManager implements Serializable {
 
             }
         }
-        Message newMessageForSender = new WordMessage(senderUsername, receivers, subject, content, totalNumber);
-        if(!senderMap.containsKey(senderUsername)){
+        if(getOutbox(senderUsername) == null){
             List<Message> messageList = new ArrayList<>();
             messageList.add(newMessageForSender);
             senderMap.put(senderUsername, messageList);
@@ -259,6 +591,21 @@ public class MessagingManager implements Serializable {
             senderMap.get(senderUsername).add(newMessageForSender);
         }
         totalNumber = totalNumber + 1;
+        notifyObservers("sendWordMessage", senderUsername, new ArrayList<>(receivers), subject, content,
+                newMessageForSender.getBodyPosition());
+    }
+
+    /**
+     * Sends a notice from the conference itself to one user, for example when the user is given a place in an event
+     * they were waiting for.
+     * @param receiver the username of the user to notify
+     * @param subject the subject of the notice
+     * @param content the content of the notice
+     */
+    public synchronized void sendNotice(String receiver, String subject, String content) {
+        List<String> receivers = new ArrayList<>();
+        receivers.add(receiver);
+        sendWordMessage(NOTICE_SENDER, receivers, subject, content);
     }
 
     /**
@@ -268,13 +615,14 @@ public class MessagingManager implements Serializable {
      * @return true if marked as unread, false if the message does not exist
      */
     //true if operated false can't
-    protected boolean markAsUnread(Integer order, String currUsername){
-        if(!receiverMap.containsKey(currUsername)){
+    protected synchronized boolean markAsUnread(Integer order, String currUsername){
+        if(getMailbox(currUsername) == null){
             return false;
         }
         for(Message message: receiverMap.get(currUsername)){
             if(message.getOrder().equals(order)){
                 message.markedUnread();
+                notifyObservers("markAsUnread", order, currUsername);
                 return true;
             }
         }
@@ -288,8 +636,8 @@ public class MessagingManager implements Serializable {
      * @return true if deleted, false if message doesn't not exist
      */
     //true if operated false can't
-    protected boolean deleteReceivedMessage(Integer order, String currUsername){
-        if(!receiverMap.containsKey(currUsername)){
+    protected synchronized boolean deleteReceivedMessage(Integer order, String currUsername){
+        if(getMailbox(currUsername) == null){
             return false;
         }
         if(receiverMap.get(currUsername).isEmpty() || receiverMap.get(currUsername) == null){
@@ -305,6 +653,7 @@ public class MessagingManager implements Serializable {
             return false;
         }else{
             receiverMap.put(currUsername, messageList);
+            notifyObservers("deleteReceivedMessage", order, currUsername);
             return true;
 
         }
@@ -317,8 +666,8 @@ public class MessagingManager implements Serializable {
      * @return true if deleted, false if message doesn't not exist
      */
     //true if operated false can't
-    protected boolean deleteSentMessage(Integer order, String currUsername){
-        if(!senderMap.containsKey(currUsername)){
+    protected synchronized boolean deleteSentMessage(Integer order, String currUsername){
+        if(getOutbox(currUsername) == null){
             return false;
         }
         if(senderMap.get(currUsername) == null || senderMap.get(currUsername).isEmpty()){
@@ -334,6 +683,7 @@ public class MessagingManager implements Serializable {
             return false;
         }else{
             senderMap.put(currUsername, messageList);
+            notifyObservers("deleteSentMessage", order, currUsername);
             return true;
 
         }
@@ -345,8 +695,8 @@ public class MessagingManager implements Serializable {
      * @param currUsername user who wants to view received message
      * @return receiver version toString of message with given ID in given user's mailbox, null of can't find
      */
-    protected String getGivenOrderReceivedMessage(Integer order, String currUsername){
-        if(!receiverMap.containsKey(currUsername)){
+    protected synchronized String getGivenOrderReceivedMessage(Integer order, String currUsername){
+        if(getMailbox(currUsername) == null){
             return null;
         }
         if(receiverMap.get(currUsername).isEmpty() || receiverMap.get(currUsername) == null){
@@ -366,8 +716,8 @@ public class MessagingManager implements Serializable {
      * @param currUsername user who wants to view sent message
      * @return sender version toString of message with given ID in given user's outbox, null of can't find
      */
-    protected String getGivenOrderSentMessage(Integer order, String currUsername){
-        if(!senderMap.containsKey(currUsername)){
+    protected synchronized String getGivenOrderSentMessage(Integer order, String currUsername){
+        if(getOutbox(currUsername) == null){
             return null;
         }
         if(senderMap.get(currUsername) == null || senderMap.get(currUsername).isEmpty()){
@@ -386,42 +736,51 @@ public class MessagingManager implements Serializable {
      * @param order the message ID of message want to delete
      * @return true if deleted, false if does not exist
      */
-    protected boolean adminDeleteMessage(Integer order){
-        Integer i = 0;
-        for(String username: senderMap.keySet()){
-            List<Message> newList = new ArrayList<>();
-            if(senderMap.get(username) != null && !senderMap.get(username).isEmpty()){
-                for(Message message: senderMap.get(username)){
-                    if(!message.getOrder().equals(order)){
-                        newList.add(message);
-                    }
-                }
-                if(!(newList.size() == senderMap.get(username).size())){
-                    senderMap.put(username, newList);
-                    i++;
+    protected synchronized boolean adminDeleteMessage(Integer order){
+        boolean deleted = deleteFromAll(senderMap, SENT, order);
+        deleted = deleteFromAll(receiverMap, RECEIVED, order) || deleted;
+        if(deleted){
+            notifyObservers("adminDeleteMessage", order);
+        }
+        return deleted;
+    }
+
+    //a helper for adminDeleteMessage, removes the message from every list in the given map or in the mailbox file.
+    //Lists in the mailbox file are only kept in the map when the message is removed from them.
+    private boolean deleteFromAll(Map<String, List<Message>> messageMap, String prefix, Integer order){
+        Set<String> usernames = new HashSet<>(messageMap.keySet());
+        if(mailboxes != null){
+            for(String key: mailboxes.keys()){
+                if(key.startsWith(prefix)){
+                    usernames.add(key.substring(prefix.length()));
                 }
             }
-
         }
-        for(String username: receiverMap.keySet()){
-            List<Message> newList = new ArrayList<>();
-            if(receiverMap.get(username) != null && !receiverMap.isEmpty()){
-                for(Message m: receiverMap.get(username)){
-                    if(!m.getOrder().equals(order)){
-                        newList.add(m);
-                    }
+        boolean deleted = false;
+        for(String username: usernames){
+            List<Message> messages = messageMap.get(username);
+            if(messages == null && messageMap.containsKey(username)){
+                continue;
+            }
+            if(messages == null){
+                try {
+                    messages = readSegment(mailboxes.read(prefix + username));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Unable to read the messages of " + username, ex);
                 }
-                if(!(newList.size() == receiverMap.get(username).size())){
-                    receiverMap.put(username, newList);
-                    i++;
+            }
+            List<Message> newList = new ArrayList<>();
+            for(Message message: messages){
+                if(!message.getOrder().equals(order)){
+                    newList.add(message);
                 }
             }
+            if(newList.size() != messages.size()){
+                messageMap.put(username, newList);
+                deleted = true;
+            }
         }
-        if(i > 0){
-            return true;
-        }else{
-            return false;
-        }
+        return deleted;
     }
 
     /**
@@ -429,9 +788,9 @@ public class MessagingManager implements Serializable {
      * @param username username of given user
      * @return list of receiver version toString of all unread message of given user
      */
-    protected List<String> getUnreadMessage(String username){
+    protected synchronized List<String> getUnreadMessage(String username){
         List<Message> messageList = new ArrayList<>();
-        if(receiverMap.get(username) == null || receiverMap.get(username).isEmpty()){
+        if(getMailbox(username) == null || receiverMap.get(username).isEmpty()){
             return null;
         }
         for(Message message: receiverMap.get(username)){
@@ -440,7 +799,7 @@ public class MessagingManager implements Serializable {
             }
         }
         List<Message> sorted = sortMessages(messageList);
-        return getReceivedToString(sorted);
+        return getReceivedToString(sorted, username);
 
     }
 
@@ -1,8 +1,11 @@
 package message;
 
+import data.AppendFile;
+import data.SnapshotReader;
+import data.SnapshotWriter;
 import message.Message;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.List;
 
 /**
@@ -11,17 +14,38 @@ import java.util.List;
  * Represents messages which have their subject and content in words. Hence this class is called WordMessage.
  * All the constructed messages are already sent by its sender.
  * For most of the attributes in this class there is no setter method because the sent message should not be changed.
+ * The subject and the content are stored together as the body of the message, and are read when they are needed.
  * @author Group0065
  * @version 1.0.0
  */
 class WordMessage extends Message implements Serializable {
-    private final String subject;
-    private final String content;
 
-    public WordMessage(String sender, List<String> receiver, String subject, String WordContent, Integer order) {
+    public WordMessage(String sender, List<String> receiver, String subject, String WordContent, Integer order,
+                       AppendFile bodies) {
+        this(sender, receiver, subject, WordContent, order, bodies, null);
+    }
+
+    /**
+     * Creates a message whose body may already be in the body file, when the sending of it is replayed. The body is
+     * only appended if it is not found at the given position.
+     * @param sender the sender's name
+     * @param receiver the list of receiver's names
+     * @param subject the subject of the message
+     * @param WordContent the content of the message
+     * @param order the unique order in the message based on when it is created
+     * @param bodies the body file
+     * @param bodyPosition the position the body was appended at when the message was first sent, null if unknown
+     */
+    WordMessage(String sender, List<String> receiver, String subject, String WordContent, Integer order,
+                AppendFile bodies, Long bodyPosition) {
+        super(sender, receiver, order);
+        byte[] body = writeBody(subject, WordContent);
+        if (bodyPosition == null || !reuseBody(bodies, bodyPosition, body)) storeBody(bodies, body);
+    }
+
+    // constructor for the copies and the messages read from file, their body is set afterwards
+    WordMessage(String sender, List<String> receiver, Integer order) {
         super(sender, receiver, order);
-        content = WordContent;
-        this.subject = subject;
     }
 
     /**
@@ -30,7 +54,7 @@ class WordMessage extends Message implements Serializable {
      */
     @Override
     protected String getContent() {
-        return content;
+        return readSubjectAndContent()[1];
     }
 
     /**
@@ -39,7 +63,43 @@ class WordMessage extends Message implements Serializable {
      */
     @Override
     protected String getSubject() {
-        return subject;
+        return readSubjectAndContent()[0];
+    }
+
+    /**
+     * Makes a new copy of this message with the same body, which is not read yet.
+     * @return the copy of this message
+     */
+    @Override
+    protected Message copy() {
+        Message copy = new WordMessage(getSenderUsername(), getReceiverUsername(), getOrder());
+        copy.shareBody(this);
+        return copy;
+    }
+
+    // helper for the constructor, puts the subject and the content into one body
+    private static byte[] writeBody(String subject, String content) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            SnapshotWriter writer = new SnapshotWriter(output);
+            writer.writeText(subject);
+            writer.writeText(content);
+            output.close();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // helper to read the subject and the content back from the body
+    private String[] readSubjectAndContent() {
+        try {
+            SnapshotReader reader = new SnapshotReader(new DataInputStream(new ByteArrayInputStream(readBody())));
+            return new String[]{reader.readText(), reader.readText()};
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
 
@@ -50,12 +110,13 @@ class WordMessage extends Message implements Serializable {
      */
     @Override
     public String toString(){
+        String[] body = readSubjectAndContent();
         String receiverName = String.join(", ", getReceiverUsername());
         return "Sender: " + this.getSenderUsername() + "\n" +
                 "Receiver: " + receiverName + "\n" +
                 "Message ID: " + getOrder().toString() + "\n" +
-                "Subject: " + subject + "\n" +
-                "Content: " + content + "\n";
+                "Subject: " + body[0] + "\n" +
+                "Content: " + body[1] + "\n";
     }
 
     // Method for received message, we don't need all of the receivers
@@ -68,11 +129,12 @@ class WordMessage extends Message implements Serializable {
      */
     @Override
     public String toStringReceived() {
+        String[] body = readSubjectAndContent();
         return "Received from: " + this.getSenderUsername() + "\n" +
                 "Message ID: " + getOrder().toString() + "\n" +
-                "Subject: " + subject + "\n" +
-                "Content: " + content + "\n";
+                "Subject: " + body[0] + "\n" +
+                "Content: " + body[1] + "\n";
     }
 
 
-}
\ No newline at end of file
+}
@@ -1,40 +1,100 @@
 package room;
 
+import data.SnapshotReader;
+import data.SnapshotWriter;
+import data.TimeInterval;
+
+import java.io.IOException;
 import java.io.Serializable;
-import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
 import java.util.*;
 
 /**
  * An entity class of Room.
  * Stores capacity, available time, unique room name and schedule of a room.
- * Schedule is a map with start time map to event name.
+ * The available time is kept for each day of the week as a sorted int array of minutes of the day, where each pair of
+ * numbers is the start and the end of a time the room is open, so {540, 720, 780, 1020} means 9:00 to 12:00 and 13:00
+ * to 17:00. Times of a day never overlap or touch, and a time ends at 1440 at the latest, so the room is never open
+ * across midnight.
+ * Schedule is a map with event id map to the time of the event. The same events are also kept as bookings, sorted by
+ * time, so checking a time against the schedule only looks at the one booking right before the end of that time.
+ * Bookings never overlap, an event ending when the next one starts is fine.
  * @author Group0065
  * @version 1.0.0
  */
 class Room implements Serializable {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int[] CLOSED = new int[0];
+
     private final Integer capacity;
-    private NavigableMap<Integer, Integer> availableTime;
+    // the times the room is open on each day of the week, from Monday
+    private int[][] availableTime;
     private final String roomName; //Check for uniqueness
     // No getters for this room name as it is stored directly in the use case as keys in the Map
-    private Map<String, Timestamp[]> schedule;
+    private Map<String, TimeInterval> schedule;
+    private NavigableMap<TimeInterval, String> bookings;
 
     /**
      * constructs a room
      * @param capacity the capacity of the room
-     * @param availableTimeSlots the available time to hold events
+     * @param availableTimeSlots the available time to hold events, for each day of the week from Monday, pairs of the
+     * start and the end in minutes of the day. They do not need to be sorted, times which overlap or touch are joined,
+     * and missing days are closed.
      * @param roomName the name of the roo,
      */
-    protected Room(int capacity, Integer[][] availableTimeSlots, String roomName) {
-        // Assume availableTimeSlops do not overlap
-        // A list of [[start time 1, end time 1], [start time 2, end time 2]]
+    protected Room(int capacity, int[][] availableTimeSlots, String roomName) {
         this.capacity = capacity;
-        this.availableTime = new TreeMap<>();
-        for (Integer[] lst: availableTimeSlots) {
-            availableTime.put(lst[0], lst[1]);
+        this.availableTime = new int[7][];
+        for (int day = 0; day < 7; day++) {
+            availableTime[day] = day < availableTimeSlots.length ? normalize(availableTimeSlots[day]) : CLOSED;
         }
         this.roomName = roomName;
         schedule = new HashMap<>();
+        bookings = new TreeMap<>();
+    }
+
+    /**
+     * Makes the available time of a room open at the same hours every day, from time slots given in whole hours.
+     * @param hourSlots a list of [[start hour 1, end hour 1], [start hour 2, end hour 2]]
+     * @return the available time for each day of the week, in minutes of the day
+     */
+    protected static int[][] everyDay(Integer[][] hourSlots) {
+        int[] day = new int[hourSlots.length * 2];
+        for (int i = 0; i < hourSlots.length; i++) {
+            day[2 * i] = hourSlots[i][0] * 60;
+            day[2 * i + 1] = hourSlots[i][1] * 60;
+        }
+        int[][] week = new int[7][];
+        Arrays.fill(week, day);
+        return week;
+    }
+
+    // helper to sort the times of a day, drop the empty ones and join the ones which overlap or touch
+    private static int[] normalize(int[] slots) {
+        if (slots == null || slots.length < 2) return CLOSED;
+        int[][] pairs = new int[slots.length / 2][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new int[]{Math.max(0, slots[2 * i]), Math.min(MINUTES_PER_DAY, slots[2 * i + 1])};
+        }
+        Arrays.sort(pairs, Comparator.comparingInt(pair -> pair[0]));
+        int[] day = new int[pairs.length * 2];
+        int size = 0;
+        for (int[] pair : pairs) {
+            if (pair[0] >= pair[1]) continue;
+            if (size > 0 && pair[0] <= day[size - 1]) {
+                day[size - 1] = Math.max(day[size - 1], pair[1]);
+            } else {
+                day[size++] = pair[0];
+                day[size++] = pair[1];
+            }
+        }
+        return size == 0 ? CLOSED : Arrays.copyOf(day, size);
     }
 
     /**
@@ -53,6 +113,18 @@ class Room implements Serializable {
         return roomName;
     }
 
+    /**
+     * Gets the available time of room.
+     * @return a copy of the available time for each day of the week from Monday, in minutes of the day
+     */
+    protected int[][] getAvailableTime() {
+        int[][] week = new int[7][];
+        for (int day = 0; day < 7; day++) {
+            week[day] = availableTime[day].clone();
+        }
+        return week;
+    }
+
     /**
      * Gets of events of room.
      * @return events of room
@@ -63,39 +135,133 @@ class Room implements Serializable {
 
     /**
      * Checks if room is available at given time.
-     * If this room has no event hold at the given time, then it is available.
+     * If this room has no event hold at the given time, then it is available. An event which ends at the start time
+     * or starts at the end time does not make the room unavailable.
      * @param startTime start time we want to check if room is available
      * @param endTime end time we want to check if room is available
      * @return true if available, else false
      */
     protected boolean isAvailable(Timestamp startTime, Timestamp endTime) {
-        for (String events: schedule.keySet()){
-            Timestamp[] times = schedule.get(events);
-            if (!(times[0].after(endTime) || times[1].before(startTime))) {
-                return false;
-            }
-        }
-        return true;
+        return isAvailable(TimeInterval.of(startTime, endTime));
+    }
+
+    // helper to check the time against the bookings, since they never overlap the latest one starting before the end
+    // of the time is the only one which can reach into it
+    private boolean isAvailable(TimeInterval time) {
+        Map.Entry<TimeInterval, String> before = bookings.lowerEntry(new TimeInterval(time.getEnd(), Long.MIN_VALUE));
+        return before == null || !before.getKey().overlaps(time);
     }
 
     /**
-     * Checks if the time slot of this room is valid with given time
+     * Checks if the time slot of this room is valid with given time, that is the room is open for the whole time.
+     * The time the room is open on the day of the start time is found by a binary search.
      * @param startTime start time we want to check if time slot is valid
      * @param endTime end time we want to check if time slot is valid
      * @return true if valid, else false
      */
     protected boolean isValidTimeSlots(Timestamp startTime, Timestamp endTime) {
-        int hour1 = startTime.getHours();
-        int hour2 = endTime.getHours();
-        if (availableTime.get(hour1) != null && availableTime.get(hour2) != null) {
-            return true;
-        } else {
-            Map.Entry<Integer, Integer> timeslot = availableTime.lowerEntry(hour1);
-            if (timeslot != null) {
-                return timeslot.getKey() <= hour1 && hour2 <= timeslot.getValue();
+        LocalDateTime start = startTime.toLocalDateTime();
+        LocalDateTime end = endTime.toLocalDateTime();
+        LocalDate day = start.toLocalDate();
+        if (end.isBefore(start) || end.isAfter(day.plusDays(1).atStartOfDay())) return false;
+        int startMinute = start.getHour() * 60 + start.getMinute();
+        // an end part of the way into a minute needs the whole minute, and midnight is the end of the day
+        int endMinute = end.toLocalDate().equals(day)
+                ? end.getHour() * 60 + end.getMinute() + (end.getSecond() > 0 || end.getNano() > 0 ? 1 : 0)
+                : MINUTES_PER_DAY;
+        int[] slots = availableTime[day.getDayOfWeek().getValue() - 1];
+        int slot = slotAt(slots, startMinute);
+        return slot >= 0 && endMinute <= slots[slot + 1];
+    }
+
+    // helper to find the time of a day the room is open at the given minute, returns the index of its start or -1
+    private static int slotAt(int[] slots, int minute) {
+        int index = Arrays.binarySearch(slots, minute);
+        if (index >= 0) return index % 2 == 0 ? index : -1;
+        // the first number larger than the minute is an end, so the minute is inside that time
+        int after = -index - 1;
+        return after % 2 == 1 ? after - 1 : -1;
+    }
+
+    /**
+     * Finds the free times of this room, that is the times it is open and holds no event, which last at least the given
+     * duration, from the earliest on. Each free time is as long as possible. They are found one opening window at a
+     * time, only when they are asked for, so a long period does not find all of them at once.
+     * @param from the earliest time a free time can start, in epoch milliseconds
+     * @param until the latest time a free time can end, in epoch milliseconds
+     * @param duration the least length of a free time in milliseconds
+     * @return the free times of this room in order
+     */
+    protected Iterator<TimeInterval> freeSlots(long from, long until, long duration) {
+        long least = Math.max(duration, 1);
+        Iterator<TimeInterval> windows = openWindows(from, until);
+        return new Iterator<TimeInterval>() {
+            private final Deque<TimeInterval> found = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (found.isEmpty() && windows.hasNext()) {
+                    addGaps(windows.next(), least, found);
+                }
+                return !found.isEmpty();
             }
+
+            @Override
+            public TimeInterval next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return found.poll();
+            }
+        };
+    }
+
+    // helper to go through the times this room is open from one time to another, day by day
+    private Iterator<TimeInterval> openWindows(long from, long until) {
+        boolean neverOpen = Arrays.stream(availableTime).allMatch(slots -> slots.length == 0);
+        ZoneId zone = ZoneId.systemDefault();
+        return new Iterator<TimeInterval>() {
+            private LocalDate day = Instant.ofEpochMilli(from).atZone(zone).toLocalDate();
+            private final Deque<TimeInterval> today = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (today.isEmpty() && !neverOpen
+                        && day.atStartOfDay(zone).toInstant().toEpochMilli() < until) {
+                    int[] slots = availableTime[day.getDayOfWeek().getValue() - 1];
+                    for (int i = 0; i < slots.length; i += 2) {
+                        long start = Math.max(from, atMinute(day, slots[i]));
+                        long end = Math.min(until, atMinute(day, slots[i + 1]));
+                        if (start < end) today.add(new TimeInterval(start, end));
+                    }
+                    day = day.plusDays(1);
+                }
+                return !today.isEmpty();
+            }
+
+            @Override
+            public TimeInterval next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return today.poll();
+            }
+
+            // helper to get the time of a minute of a day
+            private long atMinute(LocalDate date, int minute) {
+                return date.atStartOfDay().plusMinutes(minute).atZone(zone).toInstant().toEpochMilli();
+            }
+        };
+    }
+
+    // helper to add the gaps between the bookings inside an opening window which last at least the duration
+    private void addGaps(TimeInterval window, long duration, Collection<TimeInterval> gaps) {
+        TimeInterval first = new TimeInterval(window.getStart(), Long.MIN_VALUE);
+        long free = window.getStart();
+        Map.Entry<TimeInterval, String> before = bookings.lowerEntry(first);
+        if (before != null) free = Math.max(free, before.getKey().getEnd());
+        TimeInterval last = new TimeInterval(window.getEnd(), Long.MIN_VALUE);
+        for (TimeInterval booking : bookings.subMap(first, true, last, false).keySet()) {
+            if (booking.getStart() - free >= duration) gaps.add(new TimeInterval(free, booking.getStart()));
+            free = Math.max(free, booking.getEnd());
         }
-        return false;
+        if (window.getEnd() - free >= duration) gaps.add(new TimeInterval(free, window.getEnd()));
     }
 
     /**
@@ -107,8 +273,16 @@ class Room implements Serializable {
      * @return true if event is added successfully, else false
      */
     protected boolean addEventToSchedule(Timestamp startTime, Timestamp endTime, String eventName) {
-        Timestamp[] times = {startTime, endTime};
-        return schedule.putIfAbsent(eventName, times) == null;
+        TimeInterval time = TimeInterval.of(startTime, endTime);
+        if (schedule.containsKey(eventName) || bookings.containsKey(time) || !isAvailable(time)) return false;
+        book(eventName, time);
+        return true;
+    }
+
+    // helper to put an event into both the schedule and the bookings
+    private void book(String eventId, TimeInterval time) {
+        schedule.put(eventId, time);
+        bookings.put(time, eventId);
     }
 
     /**
@@ -118,37 +292,113 @@ class Room implements Serializable {
      * @return true if event is removed successfully, else false
      */
     protected boolean removeEventFromSchedule(String eventId) {
-        return schedule.entrySet()
-                .removeIf(
-                        entry -> (eventId.equals(entry.getKey())));
+        TimeInterval time = schedule.remove(eventId);
+        if (time == null) return false;
+        bookings.remove(time);
+        return true;
     }
 
     // This is a helper method for toString
     private String printSchedule(){
         StringBuilder sb = new StringBuilder();
-        for(String eventid: schedule.keySet()){
+        for(Map.Entry<TimeInterval, String> booking: bookings.entrySet()){
             sb.append("\n\t");
             sb.append("Event ");
-            sb.append(eventid);
+            sb.append(booking.getValue());
             sb.append(" is hold in this room at ");
-            sb.append(schedule.get(eventid)[0]);
-            sb.append(" to ");
-            sb.append(schedule.get(eventid)[1]);
+            sb.append(booking.getKey());
             sb.append(".");
         }
         return sb.toString();
     }
 
     /**
-     * Generates a String representation of the room available time slots in ascending order.
+     * Generates a String representation of the room available time slots in ascending order, days in a row with the
+     * same time slots are shown together, such as "Mon-Fri 09:00-17:00; Sat 10:00-14:00; Sun closed".
      * @return a String representation of the room available time slots.
      */
     protected String printAvailableTime() {
         List<String> lst = new ArrayList<>();
-        for(Integer startTime: availableTime.keySet()) {
-            lst.add(startTime.toString() + "-" + availableTime.get(startTime).toString());
+        int first = 0;
+        for (int day = 1; day <= 7; day++) {
+            if (day < 7 && Arrays.equals(availableTime[day], availableTime[first])) continue;
+            String days = dayName(first) + (day - 1 > first ? "-" + dayName(day - 1) : "");
+            if (first == 0 && day == 7) days = "every day";
+            List<String> slots = new ArrayList<>();
+            for (int i = 0; i < availableTime[first].length; i += 2) {
+                slots.add(printMinute(availableTime[first][i]) + "-" + printMinute(availableTime[first][i + 1]));
+            }
+            lst.add(days + " " + (slots.isEmpty() ? "closed" : String.join(", ", slots)));
+            first = day;
+        }
+        return String.join("; ", lst);
+    }
+
+    // helper for printAvailableTime, the short name of a day of the week counted from Monday
+    private static String dayName(int day) {
+        return DayOfWeek.of(day + 1).getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+    }
+
+    // helper for printAvailableTime, a minute of the day as hh:mm
+    private static String printMinute(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    /**
+     * Writes this room in the compact binary form: name, capacity, available time slots of each day of the week and
+     * schedule.
+     * @param writer the writer of the ser file
+     * @throws IOException if unable to write
+     */
+    protected void writeTo(SnapshotWriter writer) throws IOException {
+        writer.writeName(roomName);
+        writer.writeCount(capacity);
+        for (int[] slots : availableTime) {
+            writer.writeCount(slots.length);
+            for (int minute : slots) {
+                writer.writeCount(minute);
+            }
+        }
+        writer.writeCount(schedule.size());
+        for (Map.Entry<String, TimeInterval> event : schedule.entrySet()) {
+            writer.writeName(event.getKey());
+            writer.writeInterval(event.getValue());
+        }
+    }
+
+    /**
+     * Reads a room written by writeTo.
+     * @param reader the reader of the ser file
+     * @param version the version of the ser file, rooms before version 2 are open at the same whole hours every day
+     * @return the room read
+     * @throws IOException if unable to read
+     */
+    protected static Room readFrom(SnapshotReader reader, int version) throws IOException {
+        String roomName = reader.readName();
+        int capacity = reader.readCount();
+        int[][] week;
+        if (version < 2) {
+            Integer[][] hourSlots = new Integer[reader.readCount()][];
+            for (int i = 0; i < hourSlots.length; i++) {
+                hourSlots[i] = new Integer[]{reader.readCount(), reader.readCount()};
+            }
+            week = everyDay(hourSlots);
+        } else {
+            week = new int[7][];
+            for (int day = 0; day < 7; day++) {
+                week[day] = new int[reader.readCount()];
+                for (int i = 0; i < week[day].length; i++) {
+                    week[day][i] = reader.readCount();
+                }
+            }
+        }
+        Room room = new Room(capacity, week, roomName);
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++) {
+            String eventId = reader.readName();
+            room.book(eventId, reader.readInterval());
         }
-        return String.join(", ", lst);
+        return room;
     }
 
     /**
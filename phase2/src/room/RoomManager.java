@@ -1,12 +1,33 @@
 package room;
 
 
-import java.io.Serializable;
+import data.SnapshotReader;
+import data.SnapshotWriter;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.*;
 import java.sql.Timestamp;
+import data.TimeInterval;
+
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An use case class of room.
@@ -14,14 +35,126 @@ import java.util.Map;
  * Contains constructor of room, which is able to construct a new room.
  * Methods in this class contains check room status, operating on specific room, and get room with given information.
  * All the parameter should be given by controller of room.
+ * Rooms are also indexed by capacity, so a search for free rooms only looks at the rooms large enough, and every event
+ * in a room is mapped to the name of its room, so the room of an event is found without looking through the rooms.
+ * It is saved in a compact binary form, written and read by writeExternal and readExternal.
  * @author Group0065
  * @version 1.0.0
  */
-public class RoomManager implements Serializable {
+public class RoomManager implements Externalizable {
+    private static final long serialVersionUID = 3853736126180506712L;
+    private static final int SNAPSHOT_VERSION = 2;
+    // searches over at least this many rooms check the rooms in parallel
+    private static final int PARALLEL_SEARCH = 256;
     private Map<String, Room> roomList;
+    // capacity to the names of the rooms with that capacity, rebuilt when the rooms are read
+    private NavigableMap<Integer, Set<String>> roomsByCapacity;
+    // event id to the name of the room holding the event, rebuilt when the rooms are read
+    private Map<String, String> eventLocations;
+    // Observers are told about every mutation, they are not saved with the rooms
+    private transient PropertyChangeSupport observers;
+    // number of changes made since the rooms were read, it is not saved
+    private transient long version;
 
     public RoomManager(){
         roomList = new HashMap<>();
+        roomsByCapacity = new TreeMap<>();
+        eventLocations = new HashMap<>();
+    }
+
+    /**
+     * Adds an observer which is notified after every change to the rooms. The name of the property is the name
+     * of the operation and the new value is the array of its arguments.
+     * @param observer the observer to add
+     */
+    public void addObserver(PropertyChangeListener observer) {
+        if (observers == null) observers = new PropertyChangeSupport(this);
+        observers.addPropertyChangeListener(observer);
+    }
+
+    /**
+     * Removes an observer added before, so it is no longer notified about changes to the rooms.
+     * @param observer the observer to remove
+     */
+    public void removeObserver(PropertyChangeListener observer) {
+        if (observers != null) observers.removePropertyChangeListener(observer);
+    }
+
+    /**
+     * Writes all rooms in the compact binary form.
+     * @param out the output of the ser file
+     * @throws IOException if unable to write
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(out);
+        writer.writeCount(SNAPSHOT_VERSION);
+        writer.writeCount(roomList.size());
+        for (Room room : roomList.values()) {
+            room.writeTo(writer);
+        }
+    }
+
+    /**
+     * Reads all rooms written by writeExternal.
+     * @param in the input of the ser file
+     * @throws IOException if unable to read or the ser file is written by a newer version
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        SnapshotReader reader = new SnapshotReader(in);
+        int version = reader.readCount();
+        if (version > SNAPSHOT_VERSION) throw new InvalidClassException("Unknown room data version " + version);
+        int size = reader.readCount();
+        for (int i = 0; i < size; i++) {
+            Room room = Room.readFrom(reader, version);
+            roomList.put(room.getRoomName(), room);
+            addToCapacities(room);
+            for (String eventId : room.getEvents()) {
+                eventLocations.put(eventId, room.getRoomName());
+            }
+        }
+    }
+
+    // helper to notify the observers about a change
+    private void notifyObservers(String operation, Object... args) {
+        version++;
+        if (observers != null) observers.firePropertyChange(operation, null, args);
+    }
+
+    /**
+     * Gets the modification version of the rooms, which goes up by one with every change, so the rooms only need to be
+     * saved when it is not the same as when they were last saved.
+     * @return the modification version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies a change recorded by an observer again, used to restore the rooms from a journal.
+     * @param operation the name of the operation
+     * @param args the arguments of the operation
+     */
+    public void applyRecord(String operation, Object[] args) {
+        switch (operation) {
+            case "addRoom":
+                // rooms recorded before opening hours were kept in minutes have whole hour slots
+                if (args[1] instanceof Integer[][]) {
+                    addRoom((Integer) args[0], (Integer[][]) args[1], (String) args[2]);
+                } else {
+                    addRoom((Integer) args[0], (int[][]) args[1], (String) args[2]);
+                }
+                break;
+            case "addEventToRoom":
+                addEventToRoom((String) args[0], (String) args[1], (Timestamp) args[2], (Timestamp) args[3]);
+                break;
+            case "removeEventFromRoom":
+                removeEventFromRoom((String) args[0], (String) args[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown room operation: " + operation);
+        }
     }
 
     /**
@@ -49,20 +182,129 @@ public class RoomManager implements Serializable {
     /**
      * Makes a new room with given information, then add this new room into this roomList.
      * Room can be construct if there is not other room with input name.
+     * The room is open at the same whole hours every day.
      * @param capacity capacity of the new room
-     * @param availableTime available time of the new room
+     * @param availableTime available time of the new room, a list of [[start hour 1, end hour 1], ...]
      * @param roomName name of the new room
      * @return true if new room is constructed successfully, else false
      */
     protected boolean addRoom(int capacity, Integer[][] availableTime, String roomName) {
+        return addRoom(capacity, Room.everyDay(availableTime), roomName);
+    }
+
+    /**
+     * Makes a new room with given information, then add this new room into this roomList.
+     * Room can be construct if there is not other room with input name.
+     * @param capacity capacity of the new room
+     * @param availableTime available time of the new room for each day of the week from Monday, each one pairs of the
+     * start and the end of a time the room is open in minutes of the day, so {540, 720, 780, 1020} means 9:00 to 12:00
+     * and 13:00 to 17:00
+     * @param roomName name of the new room
+     * @return true if new room is constructed successfully, else false
+     */
+    protected boolean addRoom(int capacity, int[][] availableTime, String roomName) {
         if (roomList.get(roomName) == null) {
             Room room = new Room(capacity, availableTime, roomName);
             roomList.put(roomName, room);
+            addToCapacities(room);
+            notifyObservers("addRoom", capacity, room.getAvailableTime(), roomName);
             return true;
         }
         return false;
     }
 
+    // helper to put a room into the capacity index
+    private void addToCapacities(Room room) {
+        roomsByCapacity.computeIfAbsent(room.getCapacity(), capacity -> new TreeSet<>()).add(room.getRoomName());
+    }
+
+    /**
+     * Finds every room which can hold an event of the given capacity at the given time, that is the room is large
+     * enough, open during the time and has no other event at that time.
+     * Rooms are given best fit first: the smallest rooms which are large enough come first, rooms of the same
+     * capacity are sorted by name. Large venues are checked in parallel.
+     * @param startTime start time of the event
+     * @param endTime end time of the event
+     * @param capacity the capacity the event needs
+     * @return the names of the free rooms, best fit first
+     */
+    public List<String> findFreeRooms(Timestamp startTime, Timestamp endTime, int capacity) {
+        List<Room> candidates = new ArrayList<>();
+        for (Set<String> names : roomsByCapacity.tailMap(capacity, true).values()) {
+            for (String name : names) {
+                candidates.add(roomList.get(name));
+            }
+        }
+        Stream<Room> rooms = candidates.size() >= PARALLEL_SEARCH ? candidates.parallelStream() : candidates.stream();
+        return rooms.filter(room -> room.isValidTimeSlots(startTime, endTime) && room.isAvailable(startTime, endTime))
+                .map(Room::getRoomName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the free times of a room in a period, that is the times the room is open and holds no event, which last at
+     * least the given duration. The stream is lazy, free times are only found as they are taken from it, so the next
+     * few free times of a long period are found without looking at the rest, for example
+     * {@code findFreeSlots(room, from, until, duration).limit(5)}.
+     * Assume room name given is valid.
+     * @param roomName name of the room
+     * @param from start of the period
+     * @param until end of the period
+     * @param duration the least length of a free time in milliseconds
+     * @return the free times of the room, from the earliest on, each one as long as possible
+     */
+    public Stream<TimeInterval> findFreeSlots(String roomName, Timestamp from, Timestamp until, long duration) {
+        return stream(roomList.get(roomName).freeSlots(from.getTime(), until.getTime(), duration));
+    }
+
+    /**
+     * Finds the free times of every room in a period, which last at least the given duration. Like the free times of
+     * one room, the stream is lazy: the free times of all rooms are merged as they are taken, so taking the next few
+     * only looks at the first free times of each room.
+     * @param from start of the period
+     * @param until end of the period
+     * @param duration the least length of a free time in milliseconds
+     * @return the name of the room mapped to each free time, sorted by the start of the free time and then the name of
+     * the room
+     */
+    public Stream<Map.Entry<String, TimeInterval>> findFreeSlots(Timestamp from, Timestamp until, long duration) {
+        Map<String, Iterator<TimeInterval>> slots = new HashMap<>();
+        PriorityQueue<Map.Entry<String, TimeInterval>> next = new PriorityQueue<>(
+                Comparator.comparing((Map.Entry<String, TimeInterval> slot) -> slot.getValue())
+                        .thenComparing(Map.Entry::getKey));
+        for (Room room : roomList.values()) {
+            Iterator<TimeInterval> roomSlots = room.freeSlots(from.getTime(), until.getTime(), duration);
+            slots.put(room.getRoomName(), roomSlots);
+            addNextSlot(next, room.getRoomName(), roomSlots);
+        }
+        return stream(new Iterator<Map.Entry<String, TimeInterval>>() {
+            @Override
+            public boolean hasNext() {
+                return !next.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<String, TimeInterval> next() {
+                Map.Entry<String, TimeInterval> slot = next.poll();
+                if (slot == null) throw new NoSuchElementException();
+                addNextSlot(next, slot.getKey(), slots.get(slot.getKey()));
+                return slot;
+            }
+        });
+    }
+
+    // helper to queue the next free time of a room, if it has one
+    private static void addNextSlot(PriorityQueue<Map.Entry<String, TimeInterval>> next, String roomName,
+                                    Iterator<TimeInterval> roomSlots) {
+        if (roomSlots.hasNext()) next.add(new AbstractMap.SimpleImmutableEntry<>(roomName, roomSlots.next()));
+    }
+
+    // helper to turn an iterator into a lazy stream
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     /**
      * Checks if the room is exist in this roomList.
      * For controller to use this method check and then generates different information to the presenter.
@@ -110,18 +352,29 @@ public class RoomManager implements Serializable {
      */
     public boolean addEventToRoom(String roomName, String eventId, Timestamp startTime, Timestamp endTime) {
         // Return boolean not String so controller knows what needs to send to presenter
-        return roomList.get(roomName).addEventToSchedule(startTime, endTime, eventId);
+        if (roomList.get(roomName).addEventToSchedule(startTime, endTime, eventId)) {
+            eventLocations.put(eventId, roomName);
+            notifyObservers("addEventToRoom", roomName, eventId, startTime, endTime);
+            return true;
+        }
+        return false;
     }
 
     /**
      * Removes an event with given name at given time from a room with given name.
      * Event can only be removed if there is an event with given name at given time in room with given name
-     * @param roomName name of room
+     * @param roomName name of room, null if the event is in no room
      * @param eventId Id of event
      * @return true if removed successfully, else false
      */
     public boolean removeEventFromRoom(String roomName, String eventId) {
-        return roomList.get(roomName).removeEventFromSchedule(eventId);
+        if (roomName == null || !hasRoom(roomName)) return false;
+        if (roomList.get(roomName).removeEventFromSchedule(eventId)) {
+            eventLocations.remove(eventId);
+            notifyObservers("removeEventFromRoom", roomName, eventId);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -155,15 +408,11 @@ public class RoomManager implements Serializable {
     }
 
     /**
-     * check if event exist in some room
-     * @return room info for all rooms
+     * Finds the room which holds the given event.
+     * @param eventID id of the event
+     * @return the name of the room, or null if the event is in no room
      */
-    protected String getEventLocation(String EventID) {
-        for(Room r : roomList.values()) {
-            if(r.getEvents().contains(EventID)){
-                return r.getRoomName();
-            }
-        }
-        return null;
+    protected String getEventLocation(String eventID) {
+        return eventLocations.get(eventID);
     }
 }
@@ -29,6 +29,56 @@ public class RoomPresenter extends MainPresenter {
     }
 
 
+    /**
+     * Displays the rooms free for an event, best fit first.
+     * @param roomNames names of the free rooms
+     */
+    void printFreeRooms(List<String> roomNames) {
+        if (roomNames.isEmpty()) {
+            super.printErrorMessage("No room is free at that time with enough capacity.");
+            return;
+        }
+        System.out.println("Free rooms, best fit first: " + String.join(", ", roomNames));
+    }
+
+    /**
+     * Asks the user to enter the name of a room, or all for every room.
+     */
+    void askRoomOrAll() {
+        System.out.println("Please enter the name of room, or 'all' for every room: ");
+        super.getInput();
+    }
+
+    /**
+     * Asks the user to enter the least length of a free time in minutes.
+     */
+    void askSlotLength() {
+        System.out.println("Enter the length of time you need in minutes:");
+        super.getInput();
+    }
+
+    /**
+     * Asks the user to enter how many free times to show.
+     */
+    void askSlotCount() {
+        System.out.println("Enter how many free times to show:");
+        super.getInput();
+    }
+
+    /**
+     * Displays free times of rooms, earliest first.
+     * @param slots each free time with the name of its room
+     */
+    void printFreeSlots(List<String> slots) {
+        if (slots.isEmpty()) {
+            super.printErrorMessage("No free time of that length is found in that period.");
+            return;
+        }
+        for (String slot : slots) {
+            System.out.println(slot);
+        }
+    }
+
     /**
      * Informs the user if the event is removed from the room or not.
      *
@@ -146,19 +196,19 @@ public class RoomPresenter extends MainPresenter {
     }
 
     /**
-     * Asks user to enter a number as the start time when the room is available.
+     * Asks user to enter the times the room is open, one line each, and an empty line when done.
      */
-    void askNewRoomStartSlot() {
-        System.out.println("Please enter a number as the start time when the room is available, choose a number from 0 to 23");
+    void askNewRoomOpeningHours() {
+        System.out.println("Please enter the times the room is open, one per line, such as 'Mon-Fri 09:00-17:00', "
+                + "'Sat 10:00-14:30' or 'daily 08:00-12:00'. Enter an empty line when done.");
         super.getInput();
     }
 
     /**
-     * Asks user to enter a number as the end time when the room is available.
+     * Displays an error message to user that a line of opening hours can not be read.
      */
-    void askNewRoomEndSlot() {
-        System.out.println("Please enter a number as the end time when the room is available. choose a number from 0 to 23");
-        super.getInput();
+    void wrongOpeningHours() {
+        super.printErrorMessage("Can not read that, enter days and a time such as 'Mon-Fri 09:00-17:00'.");
     }
 
     /**
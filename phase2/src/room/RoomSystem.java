@@ -5,8 +5,18 @@ import Input.InputStrategy;
 import Input.RoomUserInput;
 import Input.UserInput;
 
+import data.TimeInterval;
+
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * A controller class of room.
@@ -16,6 +26,11 @@ import java.util.Scanner;
  * @version 1.0.7
  */
 public class RoomSystem {
+    // a line of opening hours such as "Mon-Fri 09:00-17:00" or "daily 8:30-12:00"
+    private static final Pattern OPENING_HOURS = Pattern.compile(
+            "\\s*(daily|[a-z]{3})(?:\\s*-\\s*([a-z]{3}))?\\s+(\\d{1,2}):(\\d{2})\\s*-\\s*(\\d{1,2}):(\\d{2})\\s*",
+            Pattern.CASE_INSENSITIVE);
+
     private RoomManager rooms;
     private RoomPresenter presenter;
     private InputStrategy sc = new RoomUserInput();
@@ -61,22 +76,68 @@ public class RoomSystem {
             if(numCapacity == null){
                 return;
             }
-            presenter.askNewRoomStartSlot();
-            Integer startSlot = sc.inputInteger();
-            if(startSlot == null){
+            int[][] availableTime = inputOpeningHours();
+            if (availableTime == null) {
                 return;
             }
-            presenter.askNewRoomEndSlot();
-            Integer endSlot = sc.inputInteger();
-            if(endSlot == null){
-                return;
+            presenter.addANewRoom(rooms.addRoom(numCapacity, availableTime, roomName));
+        }
+    }
+
+    // helper to read the times a new room is open, one line each, until an empty line, null if none is given
+    private int[][] inputOpeningHours() {
+        List<List<Integer>> week = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            week.add(new ArrayList<>());
+        }
+        boolean open = false;
+        presenter.askNewRoomOpeningHours();
+        for (String line = sc.inputString(); line != null; line = sc.inputString()) {
+            Matcher matcher = OPENING_HOURS.matcher(line);
+            if (!matcher.matches()) {
+                presenter.wrongOpeningHours();
+                continue;
             }
-            if (startSlot >= endSlot) {
-                presenter.wrongTimeSlot();
+            boolean daily = matcher.group(1).equalsIgnoreCase("daily");
+            int first = daily ? (matcher.group(2) == null ? 0 : -1) : dayOf(matcher.group(1));
+            int last = daily ? 6 : (matcher.group(2) == null ? first : dayOf(matcher.group(2)));
+            int start = minuteOf(matcher.group(3), matcher.group(4));
+            int end = minuteOf(matcher.group(5), matcher.group(6));
+            if (first < 0 || last < 0 || start < 0 || end < 0 || start >= end) {
+                presenter.wrongOpeningHours();
+                continue;
             }
-            Integer[][] availableTime = {{startSlot, endSlot}};
-            presenter.addANewRoom(rooms.addRoom(numCapacity, availableTime, roomName));
+            // a range of days may wrap around the end of the week, such as Sat-Mon
+            for (int day = first; ; day = (day + 1) % 7) {
+                week.get(day).add(start);
+                week.get(day).add(end);
+                if (day == last) break;
+            }
+            open = true;
+        }
+        if (!open) {
+            presenter.wrongTimeSlot();
+            return null;
         }
+        int[][] availableTime = new int[7][];
+        for (int day = 0; day < 7; day++) {
+            availableTime[day] = week.get(day).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return availableTime;
+    }
+
+    // helper to find the day of the week from its first three letters, counted from Monday, -1 if unknown
+    private int dayOf(String name) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(name.toUpperCase(Locale.ENGLISH))) return day.getValue() - 1;
+        }
+        return -1;
+    }
+
+    // helper to get the minute of the day of an hour and minute, -1 if it is not a time of the day, 24:00 is the end
+    private int minuteOf(String hour, String minute) {
+        int time = Integer.parseInt(hour) * 60 + Integer.parseInt(minute);
+        return Integer.parseInt(minute) < 60 && time <= 24 * 60 ? time : -1;
     }
 
 
@@ -162,6 +223,68 @@ public class RoomSystem {
         return roomName;
     }
 
+    /**
+     * Asks the user for a time and a capacity, then shows every room free for an event of that capacity at that
+     * time, best fit first.
+     */
+    public void findFreeRooms() {
+        Timestamp start = askForStartTime();
+        if (start == null) return;
+        Timestamp end = askForEndTime();
+        if (end == null) return;
+        if (start.after(end)) {
+            presenter.wrongTimeSlot();
+            return;
+        }
+        presenter.askEventCapacity();
+        Integer capacity = inputCapacity();
+        if (capacity == null) return;
+        presenter.printFreeRooms(rooms.findFreeRooms(start, end, capacity));
+    }
+
+    /**
+     * Asks the user for a room, or every room, a period, a length in minutes and a number of free times, then shows
+     * the first free times in that period of at least that length, earliest first.
+     */
+    public void findFreeSlots() {
+        presenter.askRoomOrAll();
+        String roomName = sc.inputString();
+        if (roomName == null) return;
+        boolean allRooms = roomName.equalsIgnoreCase("all");
+        if (!allRooms && !rooms.hasRoom(roomName)) {
+            presenter.roomNotExist();
+            return;
+        }
+        Timestamp from = askForStartTime();
+        if (from == null) return;
+        Timestamp until = askForEndTime();
+        if (until == null) return;
+        if (from.after(until)) {
+            presenter.wrongTimeSlot();
+            return;
+        }
+        presenter.askSlotLength();
+        Integer minutes = inputCapacity();
+        if (minutes == null) return;
+        presenter.askSlotCount();
+        Integer count = inputCapacity();
+        if (count == null) return;
+        long duration = Math.max(minutes, 1) * 60000L;
+        List<String> slots = new ArrayList<>();
+        if (allRooms) {
+            for (Map.Entry<String, TimeInterval> slot : rooms.findFreeSlots(from, until, duration).limit(count)
+                    .collect(Collectors.toList())) {
+                slots.add(slot.getKey() + ": " + slot.getValue());
+            }
+        } else {
+            for (TimeInterval slot : rooms.findFreeSlots(roomName, from, until, duration).limit(count)
+                    .collect(Collectors.toList())) {
+                slots.add(roomName + ": " + slot);
+            }
+        }
+        presenter.printFreeSlots(slots);
+    }
+
     /**
      * Ask user to input a start time when creating events.
      * @return name of the room if it exists, else return null.
@@ -38,6 +38,8 @@ public class OrganizerPresenter extends UserPresenter {
         options.add("change the capacity of an event");
         options.add("view the statistic information of all events in this conference");
         options.add("view top 5 events with highest attend rate");
+        options.add("find free rooms for a time and capacity");
+        options.add("find free times of rooms");
         super.printMenu(options, super.getReturnToMessage());
     }
 
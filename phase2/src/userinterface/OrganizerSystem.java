@@ -111,9 +111,9 @@ public class OrganizerSystem extends UserSystem {
                         String eventId = eventSystem.checkExistence();
                         if(eventId==null){break;}
                         Timestamp time = eventSystem.getEventStartTimeByID(eventId);
+                        List<String> speaker = eventSystem.getHosts(eventId);
+                        List<String> attendees = eventSystem.getAttendees(eventId);
                         String event = eventSystem.cancelEvent(eventId);
-                        List<String> speaker = eventSystem.getHosts(event);
-                        List<String> attendees = eventSystem.getAttendees(event);
                         List<String> organizer = new ArrayList<>();
                         organizer.add(this.username);
                         accountSystem.cancelEventsFromSpecialList(time, event, organizer);
@@ -170,6 +170,12 @@ public class OrganizerSystem extends UserSystem {
                     case "20":
                         eventSystem.getEventsTopF();
                         break;
+                    case "21":
+                        roomSystem.findFreeRooms();
+                        break;
+                    case "22":
+                        roomSystem.findFreeSlots();
+                        break;
                     case "r":
                         return;
                     default:
@@ -1,17 +1,13 @@
 package userinterface;
 
-import account.AccountManager;
 import account.AccountSystem;
-import data.DataSaver;
-import event.EventManager;
+import data.ConferenceData;
+import data.Journal;
+import data.TimeInterval;
 import event.EventSystem;
 import message.MessageSystem;
-import message.MessagingManager;
-import room.RoomManager;
 import room.RoomSystem;
-import data.DataReader;
 
-import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -102,6 +98,7 @@ public abstract class UserSystem {
                                         up.logOutSuccess();
                                         return true;
                                     case "1":
+                                        discardData();
                                         up.printActionMessage("Un-save the data");
                                         up.logOutSuccess();
                                         return false;
@@ -231,7 +228,7 @@ public abstract class UserSystem {
                 accountSystem.viewSignEvents(this.username);
                 return true;
             case "2":
-                List<Timestamp[]> unAvailableList = accountSystem.getUnAvailableTime(this.username);
+                List<TimeInterval> unAvailableList = accountSystem.getUnAvailableTime(this.username);
                 eventSystem.viewEventsAttendable(unAvailableList);
                 return true;
             case "3":
@@ -260,19 +257,14 @@ public abstract class UserSystem {
                 if(eventID == null){
                     return true;
                 }
-                Timestamp start = eventSystem.getEventStartTimeByID(eventID);
-                Timestamp end = eventSystem.getEventEndTimeByID(eventID);
-                String username = accountSystem.signUpEvent(this.username, start, end, eventID);
-                eventSystem.addAttendee(eventID, username);
+                eventSystem.signUp(eventID, this.username);
                 return true;
             case "9":
                 String eventId = eventSystem.checkExistence();
                 if(eventId == null){
                     return true;
                 }
-                Timestamp eventTime = eventSystem.getEventStartTimeByID(eventId);
-                String attendee = accountSystem.dropEvent(this.username, eventTime, eventId);
-                eventSystem.removeAttendee(attendee);
+                eventSystem.drop(eventId, this.username);
                 return true;
             case "10":
                 eventSystem.checkDescription();
@@ -318,25 +310,29 @@ public abstract class UserSystem {
     }
 
     /**
-     * Saves different data
+     * Saves different data by appending the changes made in this session to the journals of the managers, instead of
+     * rewriting every ser file. Managers which did not change are not written.
      * @param accountSystem accountSystem
      */
     public void saveData(AccountSystem accountSystem){
-        AccountManager accountManager = accountSystem.getAccounts();
-        DataSaver<AccountManager> accountSaver = new DataSaver<>();
-        accountSaver.saveToFile(accountSaver.getSrcPath("UserInfoDataBase.ser"), accountManager);
-
-        EventManager eventManager = eventSystem.getEvents();
-        DataSaver<EventManager> eventSaver = new DataSaver<>();
-        eventSaver.saveToFile(eventSaver.getSrcPath("EventDataBase.ser"), eventManager);
-
-        RoomManager roomManager = roomSystem.getRooms();
-        DataSaver<RoomManager> roomSaver = new DataSaver<>();
-        roomSaver.saveToFile(roomSaver.getSrcPath("RoomDataBase.ser"), roomManager);
+        try {
+            ConferenceData.getInstance().save();
+        } catch (ClassNotFoundException cNFE) {
+            new UserPresenter().printErrorMessage("Class not found, unable to save the data.");
+        }
+    }
 
-        MessagingManager messagingManager = messageSystem.getMessages();
-        DataSaver<MessagingManager> messageSaver = new DataSaver<>();
-        messageSaver.saveToFile(messageSaver.getSrcPath("MessageDataBase.ser"), messagingManager);
+    /**
+     * Drops the changes made in this session, so they are not read again next time. As every session shares the
+     * same managers, they are read from file again without these changes.
+     */
+    public void discardData(){
+        Journal.discardAll();
+        try {
+            ConferenceData.reload();
+        } catch (ClassNotFoundException cNFE) {
+            new UserPresenter().printErrorMessage("Class not found, unable to read the saved data again.");
+        }
     }
 
 
@@ -0,0 +1,136 @@
+package data;
+
+import event.EventManager;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A test which stops a checkpoint after the new ser file replaces the old one but before the journal is cut, the way
+ * a crash would, and checks that reading the data again does not replay the events already in the new ser file.
+ * Run it with no arguments, it exits with status 1 if the check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class CheckpointCrashTest {
+
+    private static final int EVENTS = 3;
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws ClassNotFoundException if a snapshot can not be read
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        MemoryStorage disk = new MemoryStorage();
+        CrashingStorage crashed = new CrashingStorage(disk);
+        EventManager written = new DataReader(crashed).readEvent();
+        String last = null;
+        for (int i = 0; i < EVENTS; i++) last = createEvent(written, i);
+        Journal.open(crashed, "EventJournal.log").commit();
+        crashed.crashOnTruncate = true;
+        try {
+            new Checkpointer(1, crashed).checkpoint();
+            fail("the checkpoint was not stopped");
+        } catch (Crash crash) {
+            System.out.println("checkpoint stopped after replacing EventDataBase.ser");
+        }
+
+        // a new storage over the same data has no open journals, like a new run of the program
+        EventManager restarted = new DataReader(new CrashingStorage(disk)).readEvent();
+        String next = createEvent(restarted, EVENTS);
+        String expected = "T" + EVENTS;
+        if (!restarted.checkEvent(last) || !expected.equals(next)) {
+            fail("expected the next event to be " + expected + " but it was " + next);
+        }
+        System.out.println("passed: no record was replayed twice, the next event is " + next);
+    }
+
+    // helper to create a talk given by one speaker, returns its id
+    private static String createEvent(EventManager events, int i) {
+        Timestamp start = new Timestamp(3600_000L * (24 + 2 * i));
+        return events.createEvent("Talk", "talk " + i, start, new Timestamp(start.getTime() + 3600_000L),
+                "room " + i, "", 10, Collections.singletonList("speaker"));
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+
+    // thrown instead of cutting the journal, the checkpoint stops there like the program was killed
+    private static class Crash extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    // a storage over the same memory as another one, which can crash when the journal is cut
+    private static class CrashingStorage implements Storage {
+
+        private final Storage disk;
+        private boolean crashOnTruncate;
+
+        CrashingStorage(Storage disk) {
+            this.disk = disk;
+        }
+
+        @Override
+        public boolean exists(String name) {
+            return disk.exists(name);
+        }
+
+        @Override
+        public <T> T load(String name) throws ClassNotFoundException {
+            return disk.load(name);
+        }
+
+        @Override
+        public <T> boolean save(String name, T data) {
+            return disk.save(name, data);
+        }
+
+        @Override
+        public boolean replace(String from, String to) {
+            return disk.replace(from, to);
+        }
+
+        @Override
+        public boolean append(String name, List<byte[]> records) {
+            return disk.append(name, records);
+        }
+
+        @Override
+        public long length(String name) {
+            return disk.length(name);
+        }
+
+        @Override
+        public void replay(String name, long limit, Consumer<byte[]> reader) throws IOException {
+            disk.replay(name, limit, reader);
+        }
+
+        @Override
+        public boolean truncate(String name, long prefix) {
+            if (crashOnTruncate) throw new Crash();
+            return disk.truncate(name, prefix);
+        }
+
+        @Override
+        public AppendFile openFile(String name) throws IOException {
+            return disk.openFile(name);
+        }
+
+        @Override
+        public List<String> list(String prefix) {
+            return disk.list(prefix);
+        }
+
+        @Override
+        public boolean delete(String name) {
+            return disk.delete(name);
+        }
+    }
+}
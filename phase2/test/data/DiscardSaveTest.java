@@ -0,0 +1,65 @@
+package data;
+
+import account.AccountManager;
+import event.EventManager;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+
+/**
+ * A test which discards the changes of a session, the way logging out without saving does, then saves in the next
+ * session, and checks that only the changes of the next session are written. A session which still holds a manager
+ * read before the discard must not get its changes saved, and no change may be written twice.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class DiscardSaveTest {
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws ClassNotFoundException if a snapshot can not be read
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        MemoryStorage storage = new MemoryStorage();
+        // the accounts are read from the text file in the data folder when there is no snapshot
+        storage.save("UserInfoDataBase.ser", new Snapshot<>(0, new AccountManager()));
+        ConferenceData data = ConferenceData.getInstance(storage);
+        String saved = createEvent(data.getEventManager(), 0);
+        data.save();
+
+        EventManager stale = data.getEventManager();
+        createEvent(stale, 1);
+        Journal.discardAll();
+        ConferenceData next = ConferenceData.reload();
+        String staleAfterDiscard = createEvent(stale, 2);
+        String kept = createEvent(next.getEventManager(), 3);
+        next.save();
+
+        int[] records = {0};
+        Journal.open(storage, "EventJournal.log").replay((operation, arguments) -> records[0]++, 0, 0);
+        if (records[0] != 2) fail("expected 2 records in the journal but found " + records[0]);
+        EventManager read = new DataReader(storage).readEvent();
+        if (!read.checkEvent(saved) || !read.checkEvent(kept)) {
+            fail("the saved events " + saved + " and " + kept + " were not read back");
+        }
+        if (read.checkEvent(staleAfterDiscard)) {
+            fail("the event " + staleAfterDiscard + " made on a discarded manager was saved");
+        }
+        System.out.println("passed: after discarding, only the " + records[0] + " saved changes are in the journal");
+    }
+
+    // helper to create a talk given by one speaker, returns its id
+    private static String createEvent(EventManager events, int i) {
+        Timestamp start = new Timestamp(3600_000L * (24 + 2 * i));
+        return events.createEvent("Talk", "talk " + i, start, new Timestamp(start.getTime() + 3600_000L),
+                "room " + i, "", 10, Collections.singletonList("speaker " + i));
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
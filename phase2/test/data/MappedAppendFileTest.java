@@ -0,0 +1,73 @@
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A test which appends records of growing sizes to a mapped file and reads them back, checks the file only grows as
+ * far as its records, and that a deleted file is no longer written through its old mappings.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class MappedAppendFileTest {
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws IOException if the file can not be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        File directory = Files.createTempDirectory("mapped").toFile();
+        String path = new File(directory, "records.dat").getPath();
+        MappedAppendFile file = MappedAppendFile.open(path);
+        List<byte[]> records = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            byte[] record = new byte[10 + i];
+            Arrays.fill(record, (byte) i);
+            records.add(record);
+            positions.add(file.append(record));
+        }
+        file.force();
+        if (new File(path).length() >= MappedAppendFile.REGION) {
+            fail("100 small records took " + new File(path).length() + " bytes");
+        }
+
+        // records past the first mappings, up to one which starts a new region
+        for (int i = 0; i < 6; i++) {
+            byte[] record = new byte[100_000 << i];
+            Arrays.fill(record, (byte) (100 + i));
+            records.add(record);
+            positions.add(file.append(record));
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (!Arrays.equals(file.read(positions.get(i), records.get(i).length), records.get(i))) {
+                fail("record " + i + " was not read back");
+            }
+        }
+
+        MappedAppendFile.delete(path);
+        try {
+            file.append(new byte[10]);
+            fail("a record was appended to the deleted file");
+        } catch (IOException expected) {
+            // the deleted file is closed
+        }
+        MappedAppendFile reopened = MappedAppendFile.open(path);
+        if (reopened.getEnd() != reopened.getStart()) fail("the file opened again after deleting is not empty");
+        MappedAppendFile.delete(path);
+        if (!directory.delete()) fail("the files were not deleted");
+        System.out.println("passed: " + records.size() + " records read back, the deleted file was closed");
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,116 @@
+package data;
+
+import account.AccountManager;
+import event.EventManager;
+
+import java.io.*;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A test which writes the accounts and events in their compact form and reads them back, then changes the same
+ * accounts and events and does it again, so an account or event written again after a change must not be written with
+ * the names it was written with before the change.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class SnapshotRoundTripTest {
+
+    private static final long BASE = Timestamp.valueOf("2030-01-01 09:00:00").getTime();
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws Exception if a snapshot can not be written or read
+     */
+    public static void main(String[] args) throws Exception {
+        AccountManager accounts = new AccountManager();
+        EventManager events = new EventManager();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(events.createEvent("Talk", "talk " + i, start(i), end(i), "room " + (i % 2), "", 10,
+                    Collections.singletonList("speaker")));
+        }
+        accounts.addAccount("Speaker", "speaker", "Pass0Aa");
+        for (int i = 0; i < 6; i++) {
+            accounts.addToSpecialList(start(i), end(i), ids.get(i), "speaker");
+        }
+        for (int u = 0; u < 4; u++) {
+            accounts.addAccount("Attendee", "user" + u, "Pass" + u + "Aa");
+            signUp(accounts, events, "user" + u, ids, u);
+            signUp(accounts, events, "user" + u, ids, u + 1);
+            accounts.addFriend("user" + u, "speaker");
+        }
+
+        check(roundTrip(accounts), roundTrip(events), ids, "user0", ids.subList(0, 2),
+                Collections.singletonList("speaker"));
+
+        // one user only changes events and another only friends, so each kind of change is checked on its own
+        accounts.dropEvent(ids.get(0), "user0");
+        events.removeAttendee("user0", ids.get(0));
+        signUp(accounts, events, "user0", ids, 4);
+        accounts.addFriend("user1", "user2");
+        AccountManager readAccounts = roundTrip(accounts);
+        EventManager readEvents = roundTrip(events);
+        check(readAccounts, readEvents, ids, "user0", List.of(ids.get(1), ids.get(4)),
+                Collections.singletonList("speaker"));
+        check(readAccounts, readEvents, ids, "user1", ids.subList(1, 3), List.of("speaker", "user2"));
+        System.out.println("passed: the changes made between two saves were read back");
+    }
+
+    // helper to sign a user up for the i-th talk in both managers
+    private static void signUp(AccountManager accounts, EventManager events, String user, List<String> ids, int i) {
+        if (!accounts.signUpEvent(start(i), end(i), ids.get(i), user) || !events.addAttendee(user, ids.get(i))) {
+            fail(user + " could not sign up for " + ids.get(i));
+        }
+    }
+
+    // helper to check the events and friends of a user, and that the user is an attendee of exactly those events
+    private static void check(AccountManager accounts, EventManager events, List<String> ids, String user,
+                              List<String> signed, List<String> friends) {
+        if (!accounts.viewSignedUpEvents(user).keySet().equals(new HashSet<>(signed))) {
+            fail(user + " is signed up for " + accounts.viewSignedUpEvents(user).keySet() + " instead of " + signed);
+        }
+        if (!accounts.getFriendList(user).equals(friends)) {
+            fail(user + " has the friends " + accounts.getFriendList(user) + " instead of " + friends);
+        }
+        if (accounts.getSpecialList("speaker").size() != ids.size()) fail("the speaker lost a hosted event");
+        for (String id : ids) {
+            if (events.getAttendees(id).contains(user) != signed.contains(id)) {
+                fail("the attendees of " + id + " are " + events.getAttendees(id));
+            }
+        }
+    }
+
+    // helper to write a manager the way the storages do and read it back
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T manager) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(manager);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) input.readObject();
+        }
+    }
+
+    // helper to get the start time of the i-th talk
+    private static Timestamp start(int i) {
+        return new Timestamp(BASE + 3600_000L * i);
+    }
+
+    // helper to get the end time of the i-th talk
+    private static Timestamp end(int i) {
+        return new Timestamp(BASE + 3600_000L * i + 1800_000L);
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,65 @@
+package event;
+
+import account.AccountManager;
+import data.MemoryStorage;
+import message.MessagingManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A test of events which follow each other with no gap. A user signed up for an event from 9 to 10 must be able to
+ * sign up for one from 10 to 11, and the two must not be kept apart by the list of events the user can attend, while
+ * an event from 9:30 to 10:30 must be refused by both.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class BackToBackTest {
+
+    private static final String USER = "attendee";
+
+    /**
+     * Runs the test.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        EventManager events = new EventManager();
+        AccountManager accounts = new AccountManager();
+        SignupService signups = new SignupService(events, accounts, new MessagingManager(new MemoryStorage()));
+        accounts.addAccount("Attendee", USER, "Pass0Aa");
+        String first = createTalk(events, "09:00", "10:00");
+        String next = createTalk(events, "10:00", "11:00");
+        String before = createTalk(events, "08:00", "09:00");
+        String clash = createTalk(events, "09:30", "10:30");
+        if (!signups.signUp(USER, first)) fail("could not sign up for the first talk");
+
+        List<String> attendable = new ArrayList<>();
+        for (String[] event : events.getEventsAttendable(accounts.getUnAvailableTime(USER))) {
+            attendable.add(event[2]);
+        }
+        if (!attendable.contains(next) || !attendable.contains(before)) {
+            fail("the talks right before and after are not attendable: " + attendable);
+        }
+        if (attendable.contains(clash)) fail("the overlapping talk is attendable");
+        if (!signups.signUp(USER, next)) fail("could not sign up for the talk right after");
+        if (!signups.signUp(USER, before)) fail("could not sign up for the talk right before");
+        if (signups.signUp(USER, clash)) fail("signed up for the overlapping talk");
+        System.out.println("passed: back-to-back talks can both be attended, an overlapping one can not");
+    }
+
+    // helper to create a talk on the same day between the given times, returns its id
+    private static String createTalk(EventManager events, String start, String end) {
+        return events.createEvent("Talk", "talk at " + start, Timestamp.valueOf("2030-01-01 " + start + ":00"),
+                Timestamp.valueOf("2030-01-01 " + end + ":00"), "room " + start, "", 10,
+                Collections.singletonList("speaker"));
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,74 @@
+package event;
+
+import account.AccountManager;
+import data.MemoryStorage;
+import message.MessagingManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A test of cancelling a full event with a waitlist. The attendee and the waiting user must each get one notice which
+ * says the event is cancelled, the attendee must lose the booking, and a user of another event must get nothing.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class CancelNoticeTest {
+
+    /**
+     * Runs the test.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        EventManager events = new EventManager();
+        AccountManager accounts = new AccountManager();
+        MessagingManager messages = new MessagingManager(new MemoryStorage());
+        SignupService signups = new SignupService(events, accounts, messages);
+        for (String user : new String[]{"attendee", "waiting", "other"}) {
+            accounts.addAccount("Attendee", user, "Pass0Aa");
+        }
+        String full = createTalk(events, "Full talk", "09:00", "10:00");
+        String kept = createTalk(events, "Kept talk", "11:00", "12:00");
+        if (!signups.signUp("attendee", full)) fail("could not sign up for the full talk");
+        if (!signups.joinWaitlist("waiting", full)) fail("could not wait for the full talk");
+        if (!signups.signUp("other", kept)) fail("could not sign up for the other talk");
+
+        // every message sent from now on, as its receivers, subject and content
+        List<String> notices = new ArrayList<>();
+        messages.addObserver(change -> {
+            Object[] sent = (Object[]) change.getNewValue();
+            notices.add(sent[1] + " " + sent[2] + ": " + sent[3]);
+        });
+        if (signups.cancel("no such event")) fail("cancelled an event which does not exist");
+        if (!notices.isEmpty()) fail("cancelling a missing event sent " + notices);
+        if (!signups.cancel(full)) fail("could not cancel the full talk");
+
+        if (notices.size() != 2) fail("sent " + notices.size() + " notices instead of 2: " + notices);
+        if (!notices.get(0).startsWith("[attendee] Cancelled: Full talk") || !notices.get(0).contains("your events")) {
+            fail("the attendee was not told: " + notices);
+        }
+        if (!notices.get(1).startsWith("[waiting] Cancelled: Full talk") || !notices.get(1).contains("waitlist")) {
+            fail("the waiting user was not told: " + notices);
+        }
+        if (!accounts.viewSignedUpEvents("attendee").isEmpty()) fail("the attendee still has the cancelled talk");
+        if (events.getWaitlist(full) != null) fail("the cancelled talk still has a waitlist");
+        if (!events.getAttendees(kept).equals(Collections.singletonList("other"))) fail("the other talk changed");
+        System.out.println("passed: the attendee and the waiting user were told the talk is cancelled");
+    }
+
+    // helper to create a talk with one place on the same day between the given times, returns its id
+    private static String createTalk(EventManager events, String name, String start, String end) {
+        return events.createEvent("Talk", name, Timestamp.valueOf("2030-01-01 " + start + ":00"),
+                Timestamp.valueOf("2030-01-01 " + end + ":00"), "room " + start, "", 1,
+                Collections.singletonList("speaker"));
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,61 @@
+package message;
+
+import data.AppendFile;
+import data.Checkpointer;
+import data.DataReader;
+import data.Journal;
+import data.MemoryStorage;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A test which checks that the body of a message is appended to the body file once, when it is sent, and not again
+ * when the journal is replayed by reading the messages or by a checkpoint.
+ * Run it with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class BodyFileGrowthTest {
+
+    private static final int MESSAGES = 50;
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws ClassNotFoundException if a snapshot can not be read
+     * @throws IOException if the body file can not be opened
+     */
+    public static void main(String[] args) throws ClassNotFoundException, IOException {
+        MemoryStorage memory = new MemoryStorage();
+        AppendFile bodies = memory.openFile("MessageBodies.dat");
+        MessagingManager messages = new DataReader(memory).readMessage();
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.sendWordMessage("organizer", Arrays.asList("attendee", "speaker"), "subject " + i, "content " + i);
+        }
+        Journal.open(memory, "MessageJournal.log").commit();
+        long sent = bodies.getEnd();
+
+        // replayed from the journal twice, then by a checkpoint, then read from the new snapshot
+        new DataReader(memory).readMessage();
+        new DataReader(memory).readMessage();
+        check("replaying the journal", sent, bodies.getEnd());
+        new Checkpointer(1, memory).checkpoint();
+        check("the checkpoint", sent, bodies.getEnd());
+        MessagingManager reloaded = new DataReader(memory).readMessage();
+        check("reading the checkpoint", sent, bodies.getEnd());
+        if (reloaded.getReceivedMessages("speaker").size() != MESSAGES) fail("the messages were not read back");
+        System.out.println("passed: the body file stayed at " + sent + " bytes after " + MESSAGES + " messages");
+    }
+
+    // helper to check the body file did not grow
+    private static void check(String step, long expected, long end) {
+        if (end != expected) fail(step + " grew the body file from " + expected + " to " + end + " bytes");
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}
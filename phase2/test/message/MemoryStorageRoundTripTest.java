@@ -0,0 +1,75 @@
+package message;
+
+import data.Checkpointer;
+import data.DataReader;
+import data.DataSaver;
+import data.Journal;
+import data.MemoryStorage;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A test which sends messages, checkpoints them twice and reads them again, all in a MemoryStorage, and checks that
+ * the mailbox files and the body file are kept in the memory storage and nothing in the data folder is written or
+ * deleted.
+ * Run it from the root of the project with no arguments, it exits with status 1 if a check fails.
+ * @author Group0065
+ * @version 1.0.0
+ */
+public class MemoryStorageRoundTripTest {
+
+    private static final String USER = "attendee";
+
+    /**
+     * Runs the test.
+     * @param args not used
+     * @throws ClassNotFoundException if a snapshot can not be read
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        File folder = new File(new DataSaver<>().getSrcPath(""));
+        if (!folder.isDirectory()) fail("no data folder at " + folder.getAbsolutePath());
+        Map<String, String> before = describe(folder);
+
+        MemoryStorage memory = new MemoryStorage();
+        MessagingManager messages = new DataReader(memory).readMessage();
+        for (int round = 0; round < 2; round++) {
+            messages.sendNotice(USER, "notice " + round, "first of round " + round);
+            messages.sendNotice(USER, "notice " + round, "second of round " + round);
+            Journal.open(memory, "MessageJournal.log").commit();
+            if (!new Checkpointer(1, memory).checkpoint().contains("MessageDataBase.ser")) {
+                fail("the messages were not checkpointed in round " + round);
+            }
+        }
+        MessagingManager reloaded = new DataReader(memory).readMessage();
+        List<String> received = reloaded.getReceivedMessages(USER);
+        if (received == null || received.size() != 4 || !received.get(3).contains("second of round 1")) {
+            fail("expected the 4 messages sent but read " + received);
+        }
+        List<String> mailboxes = memory.list("MessageMailboxes-");
+        if (mailboxes.size() != 1) fail("expected only the newest mailbox file in memory but found " + mailboxes);
+
+        Map<String, String> after = describe(folder);
+        if (!before.equals(after)) fail("the data folder changed from " + before + " to " + after);
+        System.out.println("passed: 4 messages read back from " + mailboxes.get(0) + ", the data folder is unchanged");
+    }
+
+    // helper to describe every file in the folder by its name, length and time it was last changed
+    private static Map<String, String> describe(File folder) {
+        Map<String, String> files = new TreeMap<>();
+        File[] list = folder.listFiles();
+        if (list == null) return files;
+        for (File file : list) {
+            files.put(file.getName(), file.length() + " bytes at " + file.lastModified());
+        }
+        return files;
+    }
+
+    // helper to report a failed check
+    private static void fail(String message) {
+        System.out.println("failed: " + message);
+        System.exit(1);
+    }
+}